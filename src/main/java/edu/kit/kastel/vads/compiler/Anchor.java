@@ -0,0 +1,42 @@
+package edu.kit.kastel.vads.compiler;
+
+/// An offset in a source that is being edited, shared by the spans of one subtree, see [Span.AnchoredSpan].
+/// The anchors relative to the end share one [End], so an edit in front of all of them only changes its length.
+public final class Anchor {
+    private final End end;
+    // absolute, or relative to the end of the source if relativeToEnd
+    private int offset;
+    private boolean relativeToEnd;
+
+    public Anchor(End end, int offset) {
+        this.end = end;
+        this.offset = offset;
+    }
+
+    public int offset() {
+        return this.relativeToEnd ? this.end.length + this.offset : this.offset;
+    }
+
+    public void setRelativeToEnd(boolean relativeToEnd) {
+        if (this.relativeToEnd != relativeToEnd) {
+            this.offset = relativeToEnd ? this.offset - this.end.length : this.offset + this.end.length;
+            this.relativeToEnd = relativeToEnd;
+        }
+    }
+
+    public static final class End {
+        private int length;
+
+        public End(int length) {
+            this.length = length;
+        }
+
+        public int length() {
+            return this.length;
+        }
+
+        public void setLength(int length) {
+            this.length = length;
+        }
+    }
+}
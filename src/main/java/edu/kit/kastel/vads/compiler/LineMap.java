@@ -0,0 +1,53 @@
+package edu.kit.kastel.vads.compiler;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/// Maps source offsets to line and column.
+/// The offsets where lines start are only computed when the first [Position] is requested.
+public final class LineMap {
+    private Supplier<MemorySegment> source;
+    private int[] lineStarts;
+
+    public LineMap(MemorySegment source) {
+        this.source = () -> source;
+    }
+
+    public Position position(int offset) {
+        int[] starts = lineStarts();
+        int line = Arrays.binarySearch(starts, offset);
+        if (line < 0) {
+            // not the start of a line itself, take the line before the insertion point
+            line = -line - 2;
+        }
+        return new Position.SimplePosition(line, offset - starts[line]);
+    }
+
+    /// Replaces the source, all spans using this map report positions in the new source from then on.
+    public synchronized void reset(Supplier<MemorySegment> source) {
+        this.source = source;
+        this.lineStarts = null;
+    }
+
+    private synchronized int[] lineStarts() {
+        if (this.lineStarts == null) {
+            int[] starts = new int[16];
+            int count = 1;
+            MemorySegment source = this.source.get();
+            long length = source.byteSize();
+            for (long i = 0; i < length; i++) {
+                byte b = source.get(ValueLayout.JAVA_BYTE, i);
+                if (b == '\n' || b == '\r') {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                    }
+                    starts[count++] = (int) i + 1;
+                }
+            }
+            this.lineStarts = Arrays.copyOf(starts, count);
+        }
+        return this.lineStarts;
+    }
+}
@@ -3,8 +3,11 @@ package edu.kit.kastel.vads.compiler;
 import edu.kit.kastel.vads.compiler.backend.aasm.CodeGenerator;
 import edu.kit.kastel.vads.compiler.ir.IrGraph;
 import edu.kit.kastel.vads.compiler.ir.SsaTranslation;
+import edu.kit.kastel.vads.compiler.ir.optimize.GlobalValueNumbering;
 import edu.kit.kastel.vads.compiler.ir.optimize.LocalValueNumbering;
 import edu.kit.kastel.vads.compiler.lexer.Lexer;
+import edu.kit.kastel.vads.compiler.lexer.ParallelLexer;
+import edu.kit.kastel.vads.compiler.parser.ParseCache;
 import edu.kit.kastel.vads.compiler.parser.ParseException;
 import edu.kit.kastel.vads.compiler.parser.Parser;
 import edu.kit.kastel.vads.compiler.parser.TokenSource;
@@ -18,8 +21,20 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
+    // if set to true, large sources are lexed in parallel, e.g., -Dcompiler.parallelLexing=true.
+    // Off by default, as it is only faster than lexing sequentially with several idle cores.
+    private static final String PARALLEL_LEXING_PROPERTY = "compiler.parallelLexing";
+    // below this size, lexing in parallel doesn't pay off
+    private static final long PARALLEL_LEXING_THRESHOLD = 16 << 20;
+    // if set, parsed trees are cached in this directory, e.g., -Dcompiler.parseCache=build/parse-cache
+    private static final String PARSE_CACHE_PROPERTY = "compiler.parseCache";
+    // below this size, hashing the source takes about as long as parsing it
+    private static final long PARSE_CACHE_THRESHOLD = 8 << 10;
+
     public static void main(String[] args) throws IOException {
         if (args.length != 2) {
             System.err.println("Invalid arguments: Expected one input file and one output file");
@@ -38,7 +53,9 @@ public class Main {
         List<IrGraph> graphs = new ArrayList<>();
         for (FunctionTree function : program.topLevelTrees()) {
             SsaTranslation translation = new SsaTranslation(function, new LocalValueNumbering());
-            graphs.add(translation.translate());
+            IrGraph graph = translation.translate();
+            new GlobalValueNumbering().optimize(graph);
+            graphs.add(graph);
         }
 
         String s = new CodeGenerator().generateCode(graphs);
@@ -62,9 +79,39 @@ public class Main {
     }
 
     private static ProgramTree lexAndParse(Path input) throws IOException {
+        String cacheDirectory = System.getProperty(PARSE_CACHE_PROPERTY);
+        if (cacheDirectory == null || Files.size(input) < PARSE_CACHE_THRESHOLD) {
+            return parse(Lexer.forPath(input), Files.size(input));
+        }
+        // the cache only saves time, if it fails the source is parsed as without it
+        ParseCache cache = new ParseCache(Path.of(cacheDirectory));
+        ParseCache.Key key;
+        try {
+            key = cache.key(input);
+            Optional<ProgramTree> cached = cache.load(key);
+            if (cached.isPresent()) {
+                return cached.get();
+            }
+        } catch (IOException e) {
+            System.err.println("Ignoring the parse cache, it can't be read: " + e);
+            return parse(Lexer.forPath(input), Files.size(input));
+        }
+        // parse the hashed content rather than reading the file again, it might have changed in between
+        ProgramTree program = parse(Lexer.forSegment(key.source()), key.source().byteSize());
+        try {
+            cache.store(key, program);
+        } catch (IOException e) {
+            System.err.println("Could not store the parsed program in the parse cache: " + e);
+        }
+        return program;
+    }
+
+    private static ProgramTree parse(Lexer lexer, long size) {
         try {
-            Lexer lexer = Lexer.forString(Files.readString(input));
-            TokenSource tokenSource = new TokenSource(lexer);
+            boolean parallel = Boolean.getBoolean(PARALLEL_LEXING_PROPERTY) && size >= PARALLEL_LEXING_THRESHOLD;
+            TokenSource tokenSource = parallel
+                ? new TokenSource(ParallelLexer.lexAll(lexer, ForkJoinPool.commonPool()), lexer, 0)
+                : new TokenSource(lexer);
             Parser parser = new Parser(tokenSource);
             return parser.parseProgram();
         } catch (ParseException e) {
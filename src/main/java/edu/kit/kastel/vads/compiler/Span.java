@@ -1,15 +1,66 @@
 package edu.kit.kastel.vads.compiler;
 
+/// A range in the source, stored as offsets.
+/// Lines and columns are only computed when [#start()] or [#end()] are called.
 public sealed interface Span {
     Position start();
     Position end();
 
+    int startOffset();
+    int endOffset();
+
     Span merge(Span later);
 
-    record SimpleSpan(Position start, Position end) implements Span {
+    record SimpleSpan(LineMap lines, int startOffset, int endOffset) implements Span {
+        @Override
+        public Position start() {
+            return lines().position(startOffset());
+        }
+
+        @Override
+        public Position end() {
+            return lines().position(endOffset());
+        }
+
+        @Override
+        public Span merge(Span later) {
+            return new SimpleSpan(lines(), startOffset(), later.endOffset());
+        }
+
+        @Override
+        public String toString() {
+            return "[" + start() + "|" + end() + "]";
+        }
+    }
+
+    /// A range relative to an [Anchor], so it moves with the anchor when the source is edited.
+    record AnchoredSpan(LineMap lines, Anchor anchor, int relativeStart, int relativeEnd) implements Span {
+        @Override
+        public Position start() {
+            return lines().position(startOffset());
+        }
+
+        @Override
+        public Position end() {
+            return lines().position(endOffset());
+        }
+
+        @Override
+        public int startOffset() {
+            return anchor().offset() + relativeStart();
+        }
+
+        @Override
+        public int endOffset() {
+            return anchor().offset() + relativeEnd();
+        }
+
         @Override
         public Span merge(Span later) {
-            return new SimpleSpan(start(), later.end());
+            if (later instanceof AnchoredSpan anchored && anchored.anchor() == anchor()) {
+                return new AnchoredSpan(lines(), anchor(), relativeStart(), anchored.relativeEnd());
+            }
+            return new SimpleSpan(lines(), startOffset(), later.endOffset());
         }
 
         @Override
@@ -8,26 +8,25 @@ import edu.kit.kastel.vads.compiler.ir.node.Node;
 import edu.kit.kastel.vads.compiler.ir.node.ProjNode;
 import edu.kit.kastel.vads.compiler.ir.node.ReturnNode;
 import edu.kit.kastel.vads.compiler.ir.node.StartNode;
-
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import edu.kit.kastel.vads.compiler.ir.util.NodeBitSet;
+import edu.kit.kastel.vads.compiler.ir.util.NodeMap;
 
 public class AasmRegisterAllocator implements RegisterAllocator {
     private int id;
-    private final Map<Node, Register> registers = new HashMap<>();
+    private NodeMap<Register> registers;
 
     @Override
-    public Map<Node, Register> allocateRegisters(IrGraph graph) {
-        Set<Node> visited = new HashSet<>();
+    public NodeMap<Register> allocateRegisters(IrGraph graph) {
+        this.registers = new NodeMap<>(graph);
+        NodeBitSet visited = new NodeBitSet(graph);
         visited.add(graph.endBlock());
         scan(graph.endBlock(), visited);
-        return Map.copyOf(this.registers);
+        return this.registers;
     }
 
-    private void scan(Node node, Set<Node> visited) {
-        for (Node predecessor : node.predecessors()) {
+    private void scan(Node node, NodeBitSet visited) {
+        for (int i = 0; i < node.predecessorCount(); i++) {
+            Node predecessor = node.predecessor(i);
             if (visited.add(predecessor)) {
                 scan(predecessor, visited);
             }
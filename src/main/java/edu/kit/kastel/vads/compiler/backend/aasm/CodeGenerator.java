@@ -16,11 +16,10 @@ import edu.kit.kastel.vads.compiler.ir.node.ProjNode;
 import edu.kit.kastel.vads.compiler.ir.node.ReturnNode;
 import edu.kit.kastel.vads.compiler.ir.node.StartNode;
 import edu.kit.kastel.vads.compiler.ir.node.SubNode;
+import edu.kit.kastel.vads.compiler.ir.util.NodeBitSet;
+import edu.kit.kastel.vads.compiler.ir.util.NodeMap;
 
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
 import static edu.kit.kastel.vads.compiler.ir.util.NodeSupport.predecessorSkipProj;
 
@@ -46,7 +45,7 @@ public class CodeGenerator {
         
         for (IrGraph graph : program) {
             RegisterAllocator allocator = new GraphColoringRegisterAllocator();
-            Map<Node, Register> registers = allocator.allocateRegisters(graph);
+            NodeMap<Register> registers = allocator.allocateRegisters(graph);
             generateForGraph(graph, builder, registers);
         }
         
@@ -60,13 +59,14 @@ public class CodeGenerator {
         return builder.toString();
     }
 
-    private void generateForGraph(IrGraph graph, StringBuilder builder, Map<Node, Register> registers) {
-        Set<Node> visited = new HashSet<>();
+    private void generateForGraph(IrGraph graph, StringBuilder builder, NodeMap<Register> registers) {
+        NodeBitSet visited = new NodeBitSet(graph);
         scan(graph.endBlock(), visited, builder, registers);
     }
 
-    private void scan(Node node, Set<Node> visited, StringBuilder builder, Map<Node, Register> registers) {
-        for (Node predecessor : node.predecessors()) {
+    private void scan(Node node, NodeBitSet visited, StringBuilder builder, NodeMap<Register> registers) {
+        for (int i = 0; i < node.predecessorCount(); i++) {
+            Node predecessor = node.predecessor(i);
             if (visited.add(predecessor)) {
                 scan(predecessor, visited, builder, registers);
             }
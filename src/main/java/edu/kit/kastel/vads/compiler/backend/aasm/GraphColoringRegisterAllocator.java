@@ -4,37 +4,45 @@ import edu.kit.kastel.vads.compiler.backend.regalloc.Register;
 import edu.kit.kastel.vads.compiler.backend.regalloc.RegisterAllocator;
 import edu.kit.kastel.vads.compiler.ir.IrGraph;
 import edu.kit.kastel.vads.compiler.ir.node.*;
+import edu.kit.kastel.vads.compiler.ir.util.NodeBitSet;
+import edu.kit.kastel.vads.compiler.ir.util.NodeMap;
 import edu.kit.kastel.vads.compiler.ir.util.NodeSupport;
 
 import java.util.*;
 
 public class GraphColoringRegisterAllocator implements RegisterAllocator {
     private static final int NUM_PHYSICAL_REGS = 3; // %rbx, %rcx, %rdx
-    private final Map<Node, Set<Node>> interferenceGraph = new HashMap<>();
-    private final Map<Node, Register> registers = new HashMap<>();
     private final Stack<Node> stack = new Stack<>();
-    private final Set<Node> spillCandidates = new HashSet<>();
-    private final Map<Node, Set<Node>> moveRelated = new HashMap<>();
+    private IrGraph graph;
+    private NodeMap<NodeBitSet> interferenceGraph;
+    private NodeMap<Register> registers;
+    private NodeBitSet spillCandidates;
+    private NodeMap<NodeBitSet> moveRelated;
     private int nextConstReg = 0;
 
     @Override
-    public Map<Node, Register> allocateRegisters(IrGraph graph) {
+    public NodeMap<Register> allocateRegisters(IrGraph graph) {
+        this.graph = graph;
+        this.interferenceGraph = new NodeMap<>(graph);
+        this.registers = new NodeMap<>(graph);
+        this.spillCandidates = new NodeBitSet(graph);
+        this.moveRelated = new NodeMap<>(graph);
         buildInterferenceGraph(graph);
         buildMoveRelated(graph);
         maximumCardinalitySearch();
         coalesce();
         simplify();
         select();
-        return Map.copyOf(registers);
+        return registers;
     }
 
     private void buildMoveRelated(IrGraph graph) {
         // Find nodes that are related by moves (same value)
-        Set<Node> visited = new HashSet<>();
+        NodeBitSet visited = new NodeBitSet(graph);
         scanForMoves(graph.endBlock(), visited);
     }
 
-    private void scanForMoves(Node node, Set<Node> visited) {
+    private void scanForMoves(Node node, NodeBitSet visited) {
         if (!visited.add(node)) {
             return;
         }
@@ -43,27 +51,28 @@ public class GraphColoringRegisterAllocator implements RegisterAllocator {
         if (node instanceof ProjNode) {
             Node source = node.predecessor(ProjNode.IN);
             if (source instanceof ConstIntNode) {
-                moveRelated.computeIfAbsent(source, k -> new HashSet<>()).add(node);
-                moveRelated.computeIfAbsent(node, k -> new HashSet<>()).add(source);
+                moveRelated.computeIfAbsent(source, k -> new NodeBitSet(graph)).add(node);
+                moveRelated.computeIfAbsent(node, k -> new NodeBitSet(graph)).add(source);
             }
         }
 
-        for (Node predecessor : node.predecessors()) {
-            scanForMoves(predecessor, visited);
+        for (int i = 0; i < node.predecessorCount(); i++) {
+            scanForMoves(node.predecessor(i), visited);
         }
     }
 
     private void maximumCardinalitySearch() {
         // MCS algorithm for better node ordering
-        Set<Node> unprocessed = new HashSet<>(interferenceGraph.keySet());
-        Map<Node, Integer> weights = new HashMap<>();
+        NodeBitSet unprocessed = new NodeBitSet(graph);
+        interferenceGraph.forEach((node, _) -> unprocessed.add(node));
+        int[] weights = new int[graph.nodeCount()];
         
         while (!unprocessed.isEmpty()) {
             // Find node with maximum weight
             Node maxNode = null;
             int maxWeight = -1;
             for (Node node : unprocessed) {
-                int weight = weights.getOrDefault(node, 0);
+                int weight = weights[node.id()];
                 if (weight > maxWeight) {
                     maxWeight = weight;
                     maxNode = node;
@@ -77,7 +86,7 @@ public class GraphColoringRegisterAllocator implements RegisterAllocator {
             // Update weights of neighbors
             for (Node neighbor : interferenceGraph.get(maxNode)) {
                 if (unprocessed.contains(neighbor)) {
-                    weights.merge(neighbor, 1, Integer::sum);
+                    weights[neighbor.id()]++;
                 }
             }
         }
@@ -88,8 +97,11 @@ public class GraphColoringRegisterAllocator implements RegisterAllocator {
         boolean changed;
         do {
             changed = false;
-            for (Node node : new HashSet<>(interferenceGraph.keySet())) {
-                Set<Node> related = moveRelated.getOrDefault(node, Collections.emptySet());
+            for (Node node : interferenceGraph.keys()) {
+                NodeBitSet related = moveRelated.get(node);
+                if (related == null) {
+                    continue;
+                }
                 for (Node relatedNode : related) {
                     if (!interferes(node, relatedNode)) {
                         // Coalesce the nodes
@@ -104,12 +116,13 @@ public class GraphColoringRegisterAllocator implements RegisterAllocator {
 
     private void buildInterferenceGraph(IrGraph graph) {
         // Initialize interference graph
-        Set<Node> visited = new HashSet<>();
+        NodeBitSet visited = new NodeBitSet(graph);
         scan(graph.endBlock(), visited);
 
         // Build interference edges
-        for (Node node : interferenceGraph.keySet()) {
-            for (Node other : interferenceGraph.keySet()) {
+        List<Node> nodes = interferenceGraph.keys();
+        for (Node node : nodes) {
+            for (Node other : nodes) {
                 if (node != other && interferes(node, other)) {
                     interferenceGraph.get(node).add(other);
                     interferenceGraph.get(other).add(node);
@@ -118,19 +131,19 @@ public class GraphColoringRegisterAllocator implements RegisterAllocator {
         }
     }
 
-    private void scan(Node node, Set<Node> visited) {
+    private void scan(Node node, NodeBitSet visited) {
         if (!visited.add(node)) {
             return;
         }
 
         // Add node to interference graph if it needs a register
         if (needsRegister(node)) {
-            interferenceGraph.put(node, new HashSet<>());
+            interferenceGraph.put(node, new NodeBitSet(graph));
         }
 
         // Recursively process predecessors
-        for (Node predecessor : node.predecessors()) {
-            scan(predecessor, visited);
+        for (int i = 0; i < node.predecessorCount(); i++) {
+            scan(node.predecessor(i), visited);
         }
     }
 
@@ -155,35 +168,57 @@ public class GraphColoringRegisterAllocator implements RegisterAllocator {
         
         // For constants, they don't interfere with other nodes unless they're used in division
         if (a instanceof ConstIntNode || b instanceof ConstIntNode) {
-            boolean aUsedInDiv = a.predecessors().stream().anyMatch(p -> p instanceof DivNode || p instanceof ModNode);
-            boolean bUsedInDiv = b.predecessors().stream().anyMatch(p -> p instanceof DivNode || p instanceof ModNode);
+            boolean aUsedInDiv = hasDivisionPredecessor(a);
+            boolean bUsedInDiv = hasDivisionPredecessor(b);
             if (!aUsedInDiv && !bUsedInDiv) {
                 return false;
             }
         }
-        return a.predecessors().stream()
-                .anyMatch(pred -> b.predecessors().contains(pred));
+        for (int i = 0; i < a.predecessorCount(); i++) {
+            Node pred = a.predecessor(i);
+            for (int j = 0; j < b.predecessorCount(); j++) {
+                if (b.predecessor(j) == pred) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasDivisionPredecessor(Node node) {
+        for (int i = 0; i < node.predecessorCount(); i++) {
+            Node pred = node.predecessor(i);
+            if (pred instanceof DivNode || pred instanceof ModNode) {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void simplify() {
+        // the degrees are counted once, counting the bits of the edge sets takes time linear in the graph size
+        int[] degrees = new int[graph.nodeCount()];
+        interferenceGraph.forEach((node, edges) -> degrees[node.id()] = edges.size());
         boolean changed;
         do {
             changed = false;
-            for (Node node : new HashSet<>(interferenceGraph.keySet())) {
-                if (interferenceGraph.get(node).size() < NUM_PHYSICAL_REGS) {
+            for (Node node : interferenceGraph.keys()) {
+                if (degrees[node.id()] < NUM_PHYSICAL_REGS) {
                     stack.push(node);
                     interferenceGraph.remove(node);
                     // Remove this node from other nodes' interference sets
-                    for (Set<Node> edges : interferenceGraph.values()) {
-                        edges.remove(node);
-                    }
+                    interferenceGraph.forEach((other, edges) -> {
+                        if (edges.remove(node)) {
+                            degrees[other.id()]--;
+                        }
+                    });
                     changed = true;
                 }
             }
         } while (changed);
 
         // If we still have nodes, they are potential spill candidates
-        spillCandidates.addAll(interferenceGraph.keySet());
+        interferenceGraph.forEach((node, _) -> spillCandidates.add(node));
     }
 
     private void select() {
@@ -196,16 +231,20 @@ public class GraphColoringRegisterAllocator implements RegisterAllocator {
             ));
 
             // Remove registers used by interfering nodes
-            for (Node interfering : interferenceGraph.getOrDefault(node, Collections.emptySet())) {
-                Register reg = registers.get(interfering);
-                if (reg != null) {
-                    availableRegs.remove(reg);
+            NodeBitSet interferingNodes = interferenceGraph.get(node);
+            if (interferingNodes != null) {
+                for (Node interfering : interferingNodes) {
+                    Register reg = registers.get(interfering);
+                    if (reg != null) {
+                        availableRegs.remove(reg);
+                    }
                 }
             }
 
             // Special handling for division operands
-            if (node.predecessors().stream().anyMatch(p -> p instanceof DivNode || p instanceof ModNode)) {
-                for (Node pred : node.predecessors()) {
+            if (hasDivisionPredecessor(node)) {
+                for (int i = 0; i < node.predecessorCount(); i++) {
+                    Node pred = node.predecessor(i);
                     if (pred instanceof DivNode || pred instanceof ModNode) {
                         Node divisor = NodeSupport.predecessorSkipProj(pred, BinaryOperationNode.RIGHT);
                         if (divisor == node) {
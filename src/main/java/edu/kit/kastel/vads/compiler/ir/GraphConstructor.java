@@ -13,27 +13,30 @@ import edu.kit.kastel.vads.compiler.ir.node.ReturnNode;
 import edu.kit.kastel.vads.compiler.ir.node.StartNode;
 import edu.kit.kastel.vads.compiler.ir.node.SubNode;
 import edu.kit.kastel.vads.compiler.ir.optimize.Optimizer;
+import edu.kit.kastel.vads.compiler.ir.util.NodeMap;
 import edu.kit.kastel.vads.compiler.parser.symbol.Name;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import java.util.Arrays;
 
 class GraphConstructor {
 
     private final Optimizer optimizer;
     private final IrGraph graph;
-    private final Map<Name, Map<Block, Node>> currentDef = new HashMap<>();
-    private final Map<Block, Map<Name, Phi>> incompletePhis = new HashMap<>();
-    private final Map<Block, Node> currentSideEffect = new HashMap<>();
-    private final Map<Block, Phi> incompleteSideEffectPhis = new HashMap<>();
-    private final Set<Block> sealedBlocks = new HashSet<>();
+    // the definitions and phis of each block, indexed by the dense variable index of this function
+    private final NodeMap<BlockDefinitions> definitions;
+    // the variable index of each name, indexed by Name#symbol(), offset by one so 0 means none yet
+    private int[] variableIndices = new int[16];
+    private int variableCount;
+    // removed trivial phis and nodes that became duplicates by their removal, mapped to the node
+    // that replaced them. The definitions aren't updated on removal, so they are resolved when read instead.
+    private final NodeMap<Node> replaced;
     private Block currentBlock;
 
     public GraphConstructor(Optimizer optimizer, String name) {
         this.optimizer = optimizer;
         this.graph = new IrGraph(name);
+        this.definitions = new NodeMap<>(this.graph);
+        this.replaced = new NodeMap<>(this.graph);
         this.currentBlock = this.graph.startBlock();
         // the start block never gets any more predecessors
         sealBlock(this.currentBlock);
@@ -95,35 +98,52 @@ class GraphConstructor {
     }
 
     void writeVariable(Name variable, Block block, Node value) {
-        this.currentDef.computeIfAbsent(variable, _ -> new HashMap<>()).put(block, value);
+        definitions(block).write(variableIndex(variable), value);
     }
 
     Node readVariable(Name variable, Block block) {
-        Node node = this.currentDef.getOrDefault(variable, Map.of()).get(block);
-        if (node != null) {
-            return node;
-        }
-        return readVariableRecursive(variable, block);
+        return readVariable(variableIndex(variable), block);
     }
 
+    private Node readVariable(int variable, Block block) {
+        // follow single predecessors iteratively, long straight chains of blocks must not recurse
+        Block current = block;
+        BlockDefinitions defs = definitions(current);
+        Node val = defs.read(variable);
+        while (val == null && defs.sealed && current.predecessorCount() == 1) {
+            current = current.predecessor(0).block();
+            defs = definitions(current);
+            val = defs.read(variable);
+        }
+        if (val == null) {
+            val = readVariableRecursive(variable, current);
+        }
+        val = resolve(val);
+        // remember the value in the blocks of the chain, so the next lookup is direct
+        for (Block b = block; b != current; b = b.predecessor(0).block()) {
+            definitions(b).write(variable, val);
+        }
+        return val;
+    }
 
-    private Node readVariableRecursive(Name variable, Block block) {
+    private Node readVariableRecursive(int variable, Block block) {
+        BlockDefinitions defs = definitions(block);
         Node val;
-        if (!this.sealedBlocks.contains(block)) {
-            val = newPhi();
-            this.incompletePhis.computeIfAbsent(block, _ -> new HashMap<>()).put(variable, (Phi) val);
-        } else if (block.predecessors().size() == 1) {
-            val = readVariable(variable, block.predecessors().getFirst().block());
+        if (!defs.sealed) {
+            Phi phi = new Phi(block);
+            defs.addIncompletePhi(variable, phi);
+            val = phi;
         } else {
-            val = newPhi();
-            writeVariable(variable, block, val);
-            val = addPhiOperands(variable, (Phi) val);
+            // sealed with a single predecessor is handled by readVariable, so this is a join
+            Phi phi = new Phi(block);
+            defs.write(variable, phi);
+            val = addPhiOperands(variable, phi);
         }
-        writeVariable(variable, block, val);
+        defs.write(variable, val);
         return val;
     }
 
-    Node addPhiOperands(Name variable, Phi phi) {
+    Node addPhiOperands(int variable, Phi phi) {
         for (Node pred : phi.block().predecessors()) {
             phi.appendOperand(readVariable(variable, pred.block()));
         }
@@ -131,18 +151,85 @@ class GraphConstructor {
     }
 
     Node tryRemoveTrivialPhi(Phi phi) {
-        // TODO: the paper shows how to remove trivial phis.
-        // as this is not a problem in Lab 1 and it is just
-        // a simplification, we recommend to implement this
-        // part yourself.
-        return phi;
+        Node same = null;
+        for (int i = 0; i < phi.predecessorCount(); i++) {
+            Node op = phi.predecessor(i);
+            if (op == same || op == phi) {
+                continue; // unique value or self-reference
+            }
+            if (same != null) {
+                return phi; // the phi merges at least two values: not trivial
+            }
+            same = op;
+        }
+        if (same == null) {
+            // the phi is unreachable or in the start block, there is no value to replace it with
+            return phi;
+        }
+        replace(phi, same);
+        return resolve(same);
+    }
+
+    /// Reroutes all uses of `node` to `replacement` and removes `node`.
+    /// The users may now be equal to other known nodes or trivial phis, so they are optimized again.
+    private void replace(Node node, Node replacement) {
+        // remember all users except the node itself, rerouting the uses changes the users of the node
+        Node[] users = new Node[node.userCount()];
+        int[] inputs = new int[node.userCount()];
+        int count = 0;
+        for (int i = 0; i < node.userCount(); i++) {
+            if (node.user(i) != node) {
+                users[count] = node.user(i);
+                inputs[count] = node.userInput(i);
+                count++;
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            // the hash of a known node depends on its inputs, so it must be forgotten before they change
+            this.optimizer.forget(users[i]);
+            users[i].setPredecessor(inputs[i], replacement);
+        }
+        node.clearPredecessors();
+        this.replaced.put(node, replacement);
+        for (int i = 0; i < count; i++) {
+            Node user = users[i];
+            if (this.replaced.containsKey(user)) {
+                continue; // a user appearing more than once, or removed by an earlier user
+            }
+            if (user instanceof Phi userPhi) {
+                tryRemoveTrivialPhi(userPhi);
+            } else {
+                Node known = this.optimizer.transform(user);
+                if (known != user) {
+                    replace(user, known);
+                }
+            }
+        }
+    }
+
+    private Node resolve(Node node) {
+        Node replacement = this.replaced.get(node);
+        while (replacement != null) {
+            node = replacement;
+            replacement = this.replaced.get(node);
+        }
+        return node;
     }
 
     void sealBlock(Block block) {
-        for (Map.Entry<Name, Phi> entry : this.incompletePhis.getOrDefault(block, Map.of()).entrySet()) {
-            addPhiOperands(entry.getKey(), entry.getValue());
+        BlockDefinitions defs = definitions(block);
+        Phi[] incompletePhis = defs.incompletePhis;
+        for (int variable = 0; variable < incompletePhis.length; variable++) {
+            if (incompletePhis[variable] != null) {
+                addPhiOperands(variable, incompletePhis[variable]);
+            }
         }
-        this.sealedBlocks.add(block);
+        if (defs.incompleteSideEffectPhi != null) {
+            addPhiOperands(defs.incompleteSideEffectPhi);
+        }
+        defs.incompletePhis = BlockDefinitions.NO_PHIS;
+        defs.incompleteSideEffectPhi = null;
+        defs.sealed = true;
     }
 
     public void writeCurrentSideEffect(Node node) {
@@ -150,7 +237,7 @@ class GraphConstructor {
     }
 
     private void writeSideEffect(Block block, Node node) {
-        this.currentSideEffect.put(block, node);
+        definitions(block).sideEffect = node;
     }
 
     public Node readCurrentSideEffect() {
@@ -158,25 +245,37 @@ class GraphConstructor {
     }
 
     private Node readSideEffect(Block block) {
-        Node node = this.currentSideEffect.get(block);
-        if (node != null) {
-            return node;
+        // like readVariable, follow single predecessors iteratively
+        Block current = block;
+        BlockDefinitions defs = definitions(current);
+        Node val = defs.sideEffect;
+        while (val == null && defs.sealed && current.predecessorCount() == 1) {
+            current = current.predecessor(0).block();
+            defs = definitions(current);
+            val = defs.sideEffect;
+        }
+        if (val == null) {
+            val = readSideEffectRecursive(current);
         }
-        return readSideEffectRecursive(block);
+        val = resolve(val);
+        for (Block b = block; b != current; b = b.predecessor(0).block()) {
+            writeSideEffect(b, val);
+        }
+        return val;
     }
 
     private Node readSideEffectRecursive(Block block) {
+        BlockDefinitions defs = definitions(block);
         Node val;
-        if (!this.sealedBlocks.contains(block)) {
-            val = newPhi();
-            Phi old = this.incompleteSideEffectPhis.put(block, (Phi) val);
-            assert old == null : "double readSideEffectRecursive for " + block;
-        } else if (block.predecessors().size() == 1) {
-            val = readSideEffect(block.predecessors().getFirst().block());
+        if (!defs.sealed) {
+            assert defs.incompleteSideEffectPhi == null : "double readSideEffectRecursive for " + block;
+            Phi phi = new Phi(block);
+            defs.incompleteSideEffectPhi = phi;
+            val = phi;
         } else {
-            val = newPhi();
-            writeSideEffect(block, val);
-            val = addPhiOperands((Phi) val);
+            Phi phi = new Phi(block);
+            writeSideEffect(block, phi);
+            val = addPhiOperands(phi);
         }
         writeSideEffect(block, val);
         return val;
@@ -189,4 +288,53 @@ class GraphConstructor {
         return tryRemoveTrivialPhi(phi);
     }
 
+    private BlockDefinitions definitions(Block block) {
+        return this.definitions.computeIfAbsent(block, _ -> new BlockDefinitions(this.variableCount));
+    }
+
+    private int variableIndex(Name variable) {
+        int symbol = variable.symbol();
+        if (symbol >= this.variableIndices.length) {
+            this.variableIndices = Arrays.copyOf(this.variableIndices, Math.max(symbol + 1, this.variableIndices.length * 2));
+        }
+        int index = this.variableIndices[symbol] - 1;
+        if (index < 0) {
+            index = this.variableCount++;
+            this.variableIndices[symbol] = index + 1;
+        }
+        return index;
+    }
+
+    private static final class BlockDefinitions {
+        static final Phi[] NO_PHIS = new Phi[0];
+        // the current definition of each variable in this block, null if there is none yet
+        private Node[] values;
+        // the phis created while the block wasn't sealed, indexed by their variable
+        Phi[] incompletePhis = NO_PHIS;
+        Node sideEffect;
+        Phi incompleteSideEffectPhi;
+        boolean sealed;
+
+        BlockDefinitions(int variableCount) {
+            this.values = new Node[Math.max(4, variableCount)];
+        }
+
+        Node read(int variable) {
+            return variable < this.values.length ? this.values[variable] : null;
+        }
+
+        void write(int variable, Node value) {
+            if (variable >= this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.max(variable + 1, this.values.length * 2));
+            }
+            this.values[variable] = value;
+        }
+
+        void addIncompletePhi(int variable, Phi phi) {
+            if (variable >= this.incompletePhis.length) {
+                this.incompletePhis = Arrays.copyOf(this.incompletePhis, Math.max(variable + 1, 4));
+            }
+            this.incompletePhis[variable] = phi;
+        }
+    }
 }
@@ -3,14 +3,14 @@ package edu.kit.kastel.vads.compiler.ir;
 import edu.kit.kastel.vads.compiler.ir.node.Block;
 import edu.kit.kastel.vads.compiler.ir.node.Node;
 
-import java.util.IdentityHashMap;
-import java.util.LinkedHashSet;
-import java.util.Map;
-import java.util.SequencedSet;
+import java.util.Arrays;
+import java.util.Objects;
 import java.util.Set;
 
 public class IrGraph {
-    private final Map<Node, SequencedSet<Node>> successors = new IdentityHashMap<>();
+    // the nodes of this graph, indexed by their id
+    private Node[] nodes = new Node[16];
+    private int nodeCount;
     private final Block startBlock;
     private final Block endBlock;
     private final String name;
@@ -21,21 +21,27 @@ public class IrGraph {
         this.endBlock = new Block(this);
     }
 
-    public void registerSuccessor(Node node, Node successor) {
-        this.successors.computeIfAbsent(node, _ -> new LinkedHashSet<>()).add(successor);
+    /// Only meant to be called by the constructor of [Node].
+    public int register(Node node) {
+        if (this.nodeCount == this.nodes.length) {
+            this.nodes = Arrays.copyOf(this.nodes, this.nodeCount * 2);
+        }
+        this.nodes[this.nodeCount] = node;
+        return this.nodeCount++;
+    }
+
+    public Node node(int id) {
+        Objects.checkIndex(id, this.nodeCount);
+        return this.nodes[id];
     }
 
-    public void removeSuccessor(Node node, Node oldSuccessor) {
-        this.successors.computeIfAbsent(node, _ -> new LinkedHashSet<>()).remove(oldSuccessor);
+    public int nodeCount() {
+        return this.nodeCount;
     }
 
     /// {@return the set of nodes that have the given node as one of their inputs}
     public Set<Node> successors(Node node) {
-        SequencedSet<Node> successors = this.successors.get(node);
-        if (successors == null) {
-            return Set.of();
-        }
-        return Set.copyOf(successors);
+        return Set.copyOf(node.users());
     }
 
     public Block startBlock() {
@@ -171,7 +171,7 @@ public class SsaTranslation {
         @Override
         public Optional<Node> visit(LiteralTree literalTree, SsaTranslation data) {
             pushSpan(literalTree);
-            Node node = data.constructor.newConstInt((int) literalTree.parseValue().orElseThrow());
+            Node node = data.constructor.newConstInt(literalTree.intValue());
             popSpan();
             return Optional.of(node);
         }
@@ -5,21 +5,37 @@ import edu.kit.kastel.vads.compiler.ir.IrGraph;
 import edu.kit.kastel.vads.compiler.ir.util.DebugInfoHelper;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /// The base class for all nodes.
+/// A node knows its users once per predecessor edge, and each edge remembers its position
+/// in the users of the predecessor, so adding and removing an edge takes constant time.
 public sealed abstract class Node permits BinaryOperationNode, Block, ConstIntNode, Phi, ProjNode, ReturnNode, StartNode {
+    private static final Node[] NO_NODES = new Node[0];
+    private static final int[] NO_INDICES = new int[0];
     private final IrGraph graph;
+    private final int id;
     private final Block block;
     private final List<Node> predecessors = new ArrayList<>();
+    private final List<Node> predecessorsView = Collections.unmodifiableList(this.predecessors);
+    // for each predecessor, the position of this node in the users of the predecessor
+    private int[] useSlots = NO_INDICES;
+    // the users of this node, and which of their predecessors this node is
+    private Node[] users = NO_NODES;
+    private int[] userInputs = NO_INDICES;
+    private int userCount;
     private final DebugInfo debugInfo;
 
     protected Node(Block block, Node... predecessors) {
         this.graph = block.graph();
+        this.id = this.graph.register(this);
         this.block = block;
-        this.predecessors.addAll(List.of(predecessors));
+        this.useSlots = new int[predecessors.length];
         for (Node predecessor : predecessors) {
-            graph.registerSuccessor(predecessor, this);
+            addPredecessor(predecessor);
         }
         this.debugInfo = DebugInfoHelper.getDebugInfo();
     }
@@ -27,6 +43,7 @@ public sealed abstract class Node permits BinaryOperationNode, Block, ConstIntNo
     protected Node(IrGraph graph) {
         assert this.getClass() == Block.class : "must be used by Block only";
         this.graph = graph;
+        this.id = graph.register(this);
         this.block = (Block) this;
         this.debugInfo = DebugInfo.NoInfo.INSTANCE;
     }
@@ -35,29 +52,94 @@ public sealed abstract class Node permits BinaryOperationNode, Block, ConstIntNo
         return this.graph;
     }
 
+    /// The ids of the nodes of a graph are dense, counting up from 0 in the order the nodes are created.
+    public final int id() {
+        return this.id;
+    }
+
     public final Block block() {
         return this.block;
     }
 
+    /// The view is not copied, so it reflects later changes to the predecessors.
     public final List<? extends Node> predecessors() {
-        return List.copyOf(this.predecessors);
+        return this.predecessorsView;
+    }
+
+    public final int predecessorCount() {
+        return this.predecessors.size();
     }
 
     public final void setPredecessor(int idx, Node node) {
-        this.graph.removeSuccessor(this.predecessors.get(idx), this);
+        this.predecessors.get(idx).removeUser(this.useSlots[idx]);
         this.predecessors.set(idx, node);
-        this.graph.registerSuccessor(node, this);
+        this.useSlots[idx] = node.addUser(this, idx);
     }
 
     public final void addPredecessor(Node node) {
+        int idx = this.predecessors.size();
+        if (idx == this.useSlots.length) {
+            this.useSlots = Arrays.copyOf(this.useSlots, Math.max(4, idx * 2));
+        }
         this.predecessors.add(node);
-        this.graph.registerSuccessor(node, this);
+        this.useSlots[idx] = node.addUser(this, idx);
+    }
+
+    /// This is meant for nodes that are dead after all their users were rerouted.
+    public final void clearPredecessors() {
+        for (int idx = 0; idx < this.predecessors.size(); idx++) {
+            // the slot is read anew each time, as removing a use may have moved another use of this node
+            this.predecessors.get(idx).removeUser(this.useSlots[idx]);
+        }
+        this.predecessors.clear();
     }
 
     public final Node predecessor(int idx) {
         return this.predecessors.get(idx);
     }
 
+    public final int userCount() {
+        return this.userCount;
+    }
+
+    /// The order of the uses changes when uses are removed.
+    public final Node user(int idx) {
+        Objects.checkIndex(idx, this.userCount);
+        return this.users[idx];
+    }
+
+    public final int userInput(int idx) {
+        Objects.checkIndex(idx, this.userCount);
+        return this.userInputs[idx];
+    }
+
+    /// The view is not copied, so it must not be iterated while predecessors of the users change.
+    public final List<Node> users() {
+        return Collections.unmodifiableList(Arrays.asList(this.users).subList(0, this.userCount));
+    }
+
+    private int addUser(Node user, int input) {
+        if (this.userCount == this.users.length) {
+            int capacity = Math.max(4, this.userCount * 2);
+            this.users = Arrays.copyOf(this.users, capacity);
+            this.userInputs = Arrays.copyOf(this.userInputs, capacity);
+        }
+        this.users[this.userCount] = user;
+        this.userInputs[this.userCount] = input;
+        return this.userCount++;
+    }
+
+    private void removeUser(int slot) {
+        // move the last use into the gap and tell its user where it is now
+        int last = --this.userCount;
+        Node moved = this.users[last];
+        int movedInput = this.userInputs[last];
+        this.users[slot] = moved;
+        this.userInputs[slot] = movedInput;
+        moved.useSlots[movedInput] = slot;
+        this.users[last] = null;
+    }
+
     @Override
     public final String toString() {
         return (this.getClass().getSimpleName().replace("Node", "") + " " + info()).stripTrailing();
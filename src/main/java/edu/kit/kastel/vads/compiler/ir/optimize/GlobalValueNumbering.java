@@ -0,0 +1,217 @@
+package edu.kit.kastel.vads.compiler.ir.optimize;
+
+import edu.kit.kastel.vads.compiler.ir.IrGraph;
+import edu.kit.kastel.vads.compiler.ir.node.AddNode;
+import edu.kit.kastel.vads.compiler.ir.node.BinaryOperationNode;
+import edu.kit.kastel.vads.compiler.ir.node.Block;
+import edu.kit.kastel.vads.compiler.ir.node.ConstIntNode;
+import edu.kit.kastel.vads.compiler.ir.node.MulNode;
+import edu.kit.kastel.vads.compiler.ir.node.Node;
+import edu.kit.kastel.vads.compiler.ir.node.SubNode;
+import edu.kit.kastel.vads.compiler.ir.util.NodeBitSet;
+import edu.kit.kastel.vads.compiler.ir.util.NodeMap;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/// Global value numbering over the dominator tree of an [IrGraph], run as a separate pass after SSA construction.
+/// Unlike [LocalValueNumbering], values are identified by the kind of the node and the ids of its inputs,
+/// as [Node#equals(Object)] and [Node#hashCode()] take the block into account.
+public class GlobalValueNumbering {
+    private final Map<ValueKey, Node> knownValues = new HashMap<>();
+    // the undo log: the keys added to the known values, in order
+    private final List<ValueKey> undoKeys = new ArrayList<>();
+    private int removed;
+
+    /// @return the number of nodes that were replaced
+    public int optimize(IrGraph graph) {
+        NodeMap<List<Node>> nodesByBlock = nodesByBlock(graph);
+        NodeMap<List<Block>> dominatorTree = dominatorTree(graph, immediateDominators(graph, nodesByBlock));
+        this.removed = 0;
+
+        // walk the dominator tree in preorder, a block is popped a second time when leaving its scope
+        Deque<Block> worklist = new ArrayDeque<>();
+        Deque<Integer> scopeStarts = new ArrayDeque<>();
+        NodeBitSet entered = new NodeBitSet(graph);
+        worklist.push(graph.startBlock());
+        while (!worklist.isEmpty()) {
+            Block block = worklist.pop();
+            if (!entered.add(block)) {
+                exitScope(scopeStarts.pop());
+                continue;
+            }
+            scopeStarts.push(this.undoKeys.size());
+            worklist.push(block);
+            for (Node node : nodesByBlock.getOrDefault(block, List.of())) {
+                number(node);
+            }
+            for (Block child : dominatorTree.getOrDefault(block, List.of())) {
+                worklist.push(child);
+            }
+        }
+        this.knownValues.clear();
+        return this.removed;
+    }
+
+    private void number(Node node) {
+        ValueKey key = keyFor(node);
+        if (key == null) {
+            return;
+        }
+        Node leader = this.knownValues.get(key);
+        if (leader == null) {
+            // values are only added while absent, so leaving the scope just removes them again
+            this.undoKeys.add(key);
+            this.knownValues.put(key, node);
+            return;
+        }
+        // reroute all uses to the dominating node, each rerouted use removes one user of the node
+        while (node.userCount() > 0) {
+            node.user(0).setPredecessor(node.userInput(0), leader);
+        }
+        node.clearPredecessors();
+        this.removed++;
+    }
+
+    private void exitScope(int start) {
+        for (int i = this.undoKeys.size() - 1; i >= start; i--) {
+            this.knownValues.remove(this.undoKeys.remove(i));
+        }
+    }
+
+    private static ValueKey keyFor(Node node) {
+        return switch (node) {
+            case ConstIntNode c -> new ValueKey(ConstIntNode.class, c.value(), 0);
+            case AddNode _, MulNode _ -> {
+                // commutative operation: order the inputs, so op(x, y) and op(y, x) have the same key
+                int left = node.predecessor(BinaryOperationNode.LEFT).id();
+                int right = node.predecessor(BinaryOperationNode.RIGHT).id();
+                yield new ValueKey(node.getClass(), Math.min(left, right), Math.max(left, right));
+            }
+            case SubNode _ -> new ValueKey(
+                SubNode.class,
+                node.predecessor(BinaryOperationNode.LEFT).id(),
+                node.predecessor(BinaryOperationNode.RIGHT).id()
+            );
+            // div and mod have side effects, the others aren't values or depend on control flow
+            default -> null;
+        };
+    }
+
+    /// {@return the reachable nodes of each block, such that inputs in the same block come before their users}
+    static NodeMap<List<Node>> nodesByBlock(IrGraph graph) {
+        NodeMap<List<Node>> nodesByBlock = new NodeMap<>(graph);
+        NodeBitSet visited = new NodeBitSet(graph);
+        // iterative post order over the inputs, deep expression chains must not recurse
+        Deque<Node> stack = new ArrayDeque<>();
+        int[] nextInput = new int[graph.nodeCount()];
+        visited.add(graph.endBlock());
+        stack.push(graph.endBlock());
+        while (!stack.isEmpty()) {
+            Node node = stack.peek();
+            // the block of a node is its last input, so the control flow edges of the block are visited as well
+            if (nextInput[node.id()] <= node.predecessorCount()) {
+                int input = nextInput[node.id()]++;
+                Node predecessor = input < node.predecessorCount() ? node.predecessor(input) : node.block();
+                if (visited.add(predecessor)) {
+                    stack.push(predecessor);
+                }
+                continue;
+            }
+            stack.pop();
+            nodesByBlock.computeIfAbsent(node.block(), _ -> new ArrayList<>()).add(node);
+        }
+        return nodesByBlock;
+    }
+
+    /// The start block is its own immediate dominator. This uses the algorithm from Cooper, Harvey and Kennedy,
+    /// [`A Simple, Fast Dominance Algorithm`](https://www.cs.tufts.edu/~nr/cs257/archive/keith-cooper/dom14.pdf).
+    static NodeMap<Block> immediateDominators(IrGraph graph, NodeMap<List<Node>> nodesByBlock) {
+        // the control flow predecessors of a block are the blocks of its inputs
+        NodeMap<List<Block>> successors = new NodeMap<>(graph);
+        for (Node block : nodesByBlock.keys()) {
+            for (Node predecessor : block.predecessors()) {
+                successors.computeIfAbsent(predecessor.block(), _ -> new ArrayList<>()).add((Block) block);
+            }
+        }
+        List<Block> reversePostOrder = reversePostOrder(graph, successors);
+        int[] order = new int[graph.nodeCount()];
+        for (int i = 0; i < reversePostOrder.size(); i++) {
+            order[reversePostOrder.get(i).id()] = i;
+        }
+
+        NodeMap<Block> idom = new NodeMap<>(graph);
+        idom.put(graph.startBlock(), graph.startBlock());
+        boolean changed;
+        do {
+            changed = false;
+            for (Block block : reversePostOrder.subList(1, reversePostOrder.size())) {
+                Block newIdom = null;
+                for (Node predecessor : block.predecessors()) {
+                    Block predecessorBlock = predecessor.block();
+                    if (!idom.containsKey(predecessorBlock)) {
+                        continue; // not processed yet
+                    }
+                    newIdom = newIdom == null ? predecessorBlock : intersect(predecessorBlock, newIdom, idom, order);
+                }
+                if (newIdom != null && idom.get(block) != newIdom) {
+                    idom.put(block, newIdom);
+                    changed = true;
+                }
+            }
+        } while (changed);
+        return idom;
+    }
+
+    private static NodeMap<List<Block>> dominatorTree(IrGraph graph, NodeMap<Block> idom) {
+        NodeMap<List<Block>> children = new NodeMap<>(graph);
+        idom.forEach((block, parent) -> {
+            if (block != graph.startBlock()) {
+                children.computeIfAbsent(parent, _ -> new ArrayList<>()).add((Block) block);
+            }
+        });
+        return children;
+    }
+
+    private static Block intersect(Block a, Block b, NodeMap<Block> idom, int[] order) {
+        while (a != b) {
+            while (order[a.id()] > order[b.id()]) {
+                a = idom.get(a);
+            }
+            while (order[b.id()] > order[a.id()]) {
+                b = idom.get(b);
+            }
+        }
+        return a;
+    }
+
+    private static List<Block> reversePostOrder(IrGraph graph, NodeMap<List<Block>> successors) {
+        List<Block> postOrder = new ArrayList<>();
+        NodeBitSet visited = new NodeBitSet(graph);
+        Deque<Block> stack = new ArrayDeque<>();
+        int[] nextSuccessor = new int[graph.nodeCount()];
+        visited.add(graph.startBlock());
+        stack.push(graph.startBlock());
+        while (!stack.isEmpty()) {
+            Block block = stack.peek();
+            List<Block> blockSuccessors = successors.getOrDefault(block, List.of());
+            if (nextSuccessor[block.id()] < blockSuccessors.size()) {
+                Block successor = blockSuccessors.get(nextSuccessor[block.id()]++);
+                if (visited.add(successor)) {
+                    stack.push(successor);
+                }
+                continue;
+            }
+            postOrder.add(stack.pop());
+        }
+        return postOrder.reversed();
+    }
+
+    // the kind of a node and what identifies its value, usually the ids of its inputs
+    private record ValueKey(Class<? extends Node> kind, int first, int second) {
+    }
+}
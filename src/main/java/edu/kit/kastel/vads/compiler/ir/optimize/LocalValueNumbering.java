@@ -10,6 +10,7 @@ import java.util.Map;
 /// is extremely simple.
 /// When using classes like [HashMap] or [java.util.HashSet] without this optimization,
 /// the [Node#equals(java.lang.Object)] and  [Node#hashCode()] methods must be adjusted.
+/// As they depend on the inputs, a known node must be [forgotten][#forget(Node)] before its inputs change.
 public class LocalValueNumbering implements Optimizer {
     private final Map<Node, Node> knownNodes = new HashMap<>();
 
@@ -17,4 +18,10 @@ public class LocalValueNumbering implements Optimizer {
     public Node transform(Node node) {
         return this.knownNodes.computeIfAbsent(node, n -> n);
     }
+
+    @Override
+    public void forget(Node node) {
+        // only remove the node itself, not a known node it is a duplicate of
+        this.knownNodes.remove(node, node);
+    }
 }
@@ -6,4 +6,8 @@ import edu.kit.kastel.vads.compiler.ir.node.Node;
 public interface Optimizer {
 
     Node transform(Node node);
+
+    /// Called before the inputs of a node are changed, the node is passed to [#transform(Node)] again afterward.
+    default void forget(Node node) {
+    }
 }
@@ -8,7 +8,6 @@ import edu.kit.kastel.vads.compiler.ir.node.Node;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,10 +17,8 @@ import java.util.Set;
 public class GraphVizPrinter {
     private final Map<Block, Set<Node>> clusters = new HashMap<>();
     private final List<Edge> edges = new ArrayList<>();
-    private final Map<Node, Integer> ids = new HashMap<>();
     private final StringBuilder builder = new StringBuilder();
     private final IrGraph graph;
-    private int counter = 0;
 
     public GraphVizPrinter(IrGraph graph) {
         this.graph = graph;
@@ -29,12 +26,12 @@ public class GraphVizPrinter {
 
     public static String print(IrGraph graph) {
         GraphVizPrinter printer = new GraphVizPrinter(graph);
-        printer.prepare(graph.endBlock(), new HashSet<>());
+        printer.prepare(graph.endBlock(), new NodeBitSet(graph));
         printer.print();
         return printer.builder.toString();
     }
 
-    private void prepare(Node node, Set<Node> seen) {
+    private void prepare(Node node, NodeBitSet seen) {
         if (!seen.add(node)) {
             return;
         }
@@ -43,9 +40,9 @@ public class GraphVizPrinter {
             this.clusters.computeIfAbsent(node.block(), _ -> Collections.newSetFromMap(new IdentityHashMap<>()))
                 .add(node);
         }
-        int idx = 0;
-        for (Node predecessor : node.predecessors()) {
-            this.edges.add(new Edge(predecessor, node, idx++));
+        for (int idx = 0; idx < node.predecessorCount(); idx++) {
+            Node predecessor = node.predecessor(idx);
+            this.edges.add(new Edge(predecessor, node, idx));
             prepare(predecessor, seen);
         }
         if (node == this.graph.endBlock()) {
@@ -125,7 +122,7 @@ public class GraphVizPrinter {
     }
 
     private int idFor(Node node) {
-        return this.ids.computeIfAbsent(node, _ -> this.counter++);
+        return node.id();
     }
 
     private String nameFor(Node node) {
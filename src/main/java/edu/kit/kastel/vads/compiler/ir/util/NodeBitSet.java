@@ -0,0 +1,84 @@
+package edu.kit.kastel.vads.compiler.ir.util;
+
+import edu.kit.kastel.vads.compiler.ir.IrGraph;
+import edu.kit.kastel.vads.compiler.ir.node.Node;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/// A set of nodes of one [IrGraph], stored as one bit per [Node#id()].
+/// The set may be changed while iterating it.
+public final class NodeBitSet implements Iterable<Node> {
+    private final IrGraph graph;
+    private final BitSet bits;
+
+    public NodeBitSet(IrGraph graph) {
+        this.graph = graph;
+        this.bits = new BitSet(graph.nodeCount());
+    }
+
+    public boolean add(Node node) {
+        int id = checkedId(node);
+        if (this.bits.get(id)) {
+            return false;
+        }
+        this.bits.set(id);
+        return true;
+    }
+
+    public void addAll(NodeBitSet other) {
+        assert other.graph == this.graph : "sets of different graphs";
+        this.bits.or(other.bits);
+    }
+
+    public boolean remove(Node node) {
+        int id = checkedId(node);
+        if (!this.bits.get(id)) {
+            return false;
+        }
+        this.bits.clear(id);
+        return true;
+    }
+
+    public boolean contains(Node node) {
+        return this.bits.get(checkedId(node));
+    }
+
+    /// This counts the bits, so it takes time linear in the size of the graph.
+    public int size() {
+        return this.bits.cardinality();
+    }
+
+    public boolean isEmpty() {
+        return this.bits.isEmpty();
+    }
+
+    @Override
+    public Iterator<Node> iterator() {
+        return new Iterator<>() {
+            // the id to continue searching at, the next node is looked up lazily to see changes
+            private int from;
+
+            @Override
+            public boolean hasNext() {
+                return NodeBitSet.this.bits.nextSetBit(this.from) >= 0;
+            }
+
+            @Override
+            public Node next() {
+                int id = NodeBitSet.this.bits.nextSetBit(this.from);
+                if (id < 0) {
+                    throw new NoSuchElementException();
+                }
+                this.from = id + 1;
+                return NodeBitSet.this.graph.node(id);
+            }
+        };
+    }
+
+    private int checkedId(Node node) {
+        assert node.graph() == this.graph : node + " is not part of " + this.graph.name();
+        return node.id();
+    }
+}
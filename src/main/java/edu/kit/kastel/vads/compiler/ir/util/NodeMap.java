@@ -0,0 +1,108 @@
+package edu.kit.kastel.vads.compiler.ir.util;
+
+import edu.kit.kastel.vads.compiler.ir.IrGraph;
+import edu.kit.kastel.vads.compiler.ir.node.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/// Maps the nodes of one [IrGraph] to values, backed by an array indexed by [Node#id()].
+/// Unlike a [java.util.HashMap], this never calls [Node#hashCode()] or [Node#equals(Object)].
+public final class NodeMap<T> {
+    private final IrGraph graph;
+    private Object[] values;
+    private int size;
+
+    public NodeMap(IrGraph graph) {
+        this.graph = graph;
+        this.values = new Object[graph.nodeCount()];
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(Node node) {
+        int id = checkedId(node);
+        // only values of type T are stored
+        return id < this.values.length ? (T) this.values[id] : null;
+    }
+
+    public T getOrDefault(Node node, T defaultValue) {
+        T value = get(node);
+        return value != null ? value : defaultValue;
+    }
+
+    public boolean containsKey(Node node) {
+        return get(node) != null;
+    }
+
+    public T put(Node node, T value) {
+        Objects.requireNonNull(value, "value");
+        T previous = get(node);
+        int id = node.id();
+        if (id >= this.values.length) {
+            // grow geometrically, nodes created one by one must not copy the array each time
+            int capacity = Math.max(id + 1, Math.max(this.values.length * 2, this.graph.nodeCount()));
+            this.values = Arrays.copyOf(this.values, capacity);
+        }
+        this.values[id] = value;
+        if (previous == null) {
+            this.size++;
+        }
+        return previous;
+    }
+
+    public T computeIfAbsent(Node node, Function<? super Node, ? extends T> mappingFunction) {
+        T value = get(node);
+        if (value == null) {
+            value = mappingFunction.apply(node);
+            put(node, value);
+        }
+        return value;
+    }
+
+    public T remove(Node node) {
+        T previous = get(node);
+        if (previous != null) {
+            this.values[node.id()] = null;
+            this.size--;
+        }
+        return previous;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /// The list is a copy, so the map may be changed while iterating it.
+    public List<Node> keys() {
+        List<Node> keys = new ArrayList<>(this.size);
+        for (int id = 0; id < this.values.length; id++) {
+            if (this.values[id] != null) {
+                keys.add(this.graph.node(id));
+            }
+        }
+        return keys;
+    }
+
+    /// The action may change the values passed to it, but not the map itself.
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<? super Node, ? super T> action) {
+        for (int id = 0; id < this.values.length; id++) {
+            if (this.values[id] != null) {
+                action.accept(this.graph.node(id), (T) this.values[id]);
+            }
+        }
+    }
+
+    private int checkedId(Node node) {
+        assert node.graph() == this.graph : node + " is not part of " + this.graph.name();
+        return node.id();
+    }
+}
@@ -2,7 +2,8 @@ package edu.kit.kastel.vads.compiler.lexer;
 
 import edu.kit.kastel.vads.compiler.Span;
 
-public record Identifier(String value, Span span) implements Token {
+/// An identifier, its name is interned as `symbol` in the [SymbolTable] of the lexer.
+public record Identifier(String value, int symbol, Span span) implements Token {
     @Override
     public String asString() {
         return value();
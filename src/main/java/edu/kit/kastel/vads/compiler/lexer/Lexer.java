@@ -1,214 +1,409 @@
 package edu.kit.kastel.vads.compiler.lexer;
 
-import edu.kit.kastel.vads.compiler.Position;
+import edu.kit.kastel.vads.compiler.Anchor;
+import edu.kit.kastel.vads.compiler.LineMap;
 import edu.kit.kastel.vads.compiler.Span;
-import edu.kit.kastel.vads.compiler.lexer.Operator.OperatorType;
-import edu.kit.kastel.vads.compiler.lexer.Separator.SeparatorType;
 
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Optional;
 
+/// Lexes tokens on demand. [#advance()] only records the kind, range and value of the next token,
+/// token objects are created by [#token(TokenKind, int, int, int)] when they are needed.
 public class Lexer {
-    private final String source;
+    private static final KeywordType[][] KEYWORDS_BY_FIRST_CHAR = keywordsByFirstChar();
+    // little endian, so the byte at the lowest offset ends up in the lowest bits
+    private static final ValueLayout.OfLong WORD = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    // the value of a number literal that doesn't fit into 32 bits, ambiguous for hex literals
+    private static final int OUT_OF_RANGE = -1;
+    private static final long MAX_DECIMAL = 1L << 31;
+    private static final long MAX_HEX = 0xFFFFFFFFL;
+    private final MemorySegment source;
+    private final int length;
+    private final SymbolTable symbols;
+    private final LineMap lines;
     private int pos;
-    private int lineStart;
-    private int line;
+    private TokenKind kind;
+    private int tokenStart;
+    private int tokenEnd;
+    private int tokenValue;
 
-    private Lexer(String source) {
+    private Lexer(MemorySegment source) {
+        this(source, new SymbolTable(), new LineMap(source));
+    }
+
+    Lexer(MemorySegment source, SymbolTable symbols, LineMap lines) {
+        if (source.byteSize() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("source too large: " + source.byteSize() + " bytes");
+        }
         this.source = source;
+        this.length = (int) source.byteSize();
+        this.symbols = symbols;
+        this.lines = lines;
     }
 
     public static Lexer forString(String source) {
+        return forBytes(source.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    public static Lexer forBytes(byte[] source) {
+        return new Lexer(MemorySegment.ofArray(source));
+    }
+
+    public static Lexer forPath(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return forSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto()));
+        }
+    }
+
+    public static Lexer forSegment(MemorySegment source) {
         return new Lexer(source);
     }
 
+    /// The `source` may be a prefix of the edited source, tokens are then only lexed up to its end.
+    public static Lexer forEdit(MemorySegment source, SymbolTable symbols, LineMap lines) {
+        return new Lexer(source, symbols, lines);
+    }
+
+    /// The offset must be the start of the source or the end of a token.
+    public void seek(int offset) {
+        this.pos = offset;
+    }
+
     public Optional<Token> nextToken() {
-        ErrorToken error = skipWhitespace();
-        if (error != null) {
-            return Optional.of(error);
-        }
-        if (this.pos >= this.source.length()) {
+        if (!advance()) {
             return Optional.empty();
         }
-        Token t = switch (peek()) {
-            case '(' -> separator(SeparatorType.PAREN_OPEN);
-            case ')' -> separator(SeparatorType.PAREN_CLOSE);
-            case '{' -> separator(SeparatorType.BRACE_OPEN);
-            case '}' -> separator(SeparatorType.BRACE_CLOSE);
-            case ';' -> separator(SeparatorType.SEMICOLON);
-            case '-' -> singleOrAssign(OperatorType.MINUS, OperatorType.ASSIGN_MINUS);
-            case '+' -> singleOrAssign(OperatorType.PLUS, OperatorType.ASSIGN_PLUS);
-            case '*' -> singleOrAssign(OperatorType.MUL, OperatorType.ASSIGN_MUL);
-            case '/' -> singleOrAssign(OperatorType.DIV, OperatorType.ASSIGN_DIV);
-            case '%' -> singleOrAssign(OperatorType.MOD, OperatorType.ASSIGN_MOD);
-            case '=' -> new Operator(OperatorType.ASSIGN, buildSpan(1));
+        return Optional.of(token(this.kind, this.tokenStart, this.tokenEnd, this.tokenValue));
+    }
+
+    public boolean advance() {
+        int unterminatedComment = skipWhitespace();
+        if (unterminatedComment >= 0) {
+            this.kind = TokenKind.ERROR;
+            this.tokenStart = unterminatedComment;
+            this.tokenEnd = this.length;
+            return true;
+        }
+        if (this.pos >= this.length) {
+            return false;
+        }
+        this.tokenStart = this.pos;
+        int state = TransitionTable.START;
+        // the hash is only needed for identifiers, but it is cheaper to compute it along the way
+        int hash = 0;
+        int p = this.pos;
+        while (p < this.length) {
+            char c = (char) (this.source.get(ValueLayout.JAVA_BYTE, p) & 0xFF);
+            int next = TransitionTable.next(state, c);
+            if (next == TransitionTable.DEAD) {
+                break;
+            }
+            state = next;
+            hash = SymbolTable.step(hash, c);
+            p++;
+        }
+        this.kind = TransitionTable.kind(state);
+        switch (this.kind) {
+            case IDENTIFIER -> this.kind = identifierOrKeyword(p - this.pos, hash);
+            case DECIMAL_LITERAL -> this.tokenValue = decimalValue(this.pos, p);
+            case HEX_LITERAL -> this.tokenValue = hexValue(this.pos + 2, p);
             default -> {
-                if (isIdentifierChar(peek())) {
-                    if (isNumeric(peek())) {
-                        yield lexNumber();
-                    }
-                    yield lexIdentifierOrKeyword();
+            }
+        }
+        this.pos = p;
+        this.tokenEnd = this.pos;
+        return true;
+    }
+
+    public TokenKind kind() {
+        return this.kind;
+    }
+
+    public int tokenStart() {
+        return this.tokenStart;
+    }
+
+    public int tokenEnd() {
+        return this.tokenEnd;
+    }
+
+    /// {@return the symbol of an identifier, or the value of a number literal}
+    public int tokenValue() {
+        return this.tokenValue;
+    }
+
+    public SymbolTable symbols() {
+        return this.symbols;
+    }
+
+    /// Such a token starts at the innermost comment, so lexing from its start may not result in the same token again.
+    boolean isUnterminatedComment() {
+        return this.kind == TokenKind.ERROR
+            && this.tokenEnd - this.tokenStart >= 2
+            && this.source.get(ValueLayout.JAVA_BYTE, this.tokenStart) == '/'
+            && this.source.get(ValueLayout.JAVA_BYTE, this.tokenStart + 1) == '*';
+    }
+
+    MemorySegment source() {
+        return this.source;
+    }
+
+    public LineMap lines() {
+        return this.lines;
+    }
+
+    public Token token(TokenKind kind, int start, int end, int value) {
+        return token(kind, start, end, value, null);
+    }
+
+    public Token token(TokenKind kind, int start, int end, int value, Anchor anchor) {
+        Span span = anchor == null
+            ? new Span.SimpleSpan(this.lines, start, end)
+            : new Span.AnchoredSpan(this.lines, anchor, start - anchor.offset(), end - anchor.offset());
+        return switch (kind) {
+            case ERROR -> new ErrorToken(text(start, end), span);
+            case IDENTIFIER -> new Identifier(this.symbols.name(value), value, span);
+            case DECIMAL_LITERAL -> new NumberLiteral(text(start, end), 10, value, value == OUT_OF_RANGE, span);
+            case HEX_LITERAL -> new NumberLiteral(
+                text(start, end), 16, value, value == OUT_OF_RANGE && hexOutOfRange(start + 2, end), span
+            );
+            default -> {
+                if (kind.keywordType() != null) {
+                    yield new Keyword(kind.keywordType(), span);
+                } else if (kind.operatorType() != null) {
+                    yield new Operator(kind.operatorType(), span);
                 }
-                yield new ErrorToken(String.valueOf(peek()), buildSpan(1));
+                yield new Separator(kind.separatorType(), span);
             }
         };
-
-        return Optional.of(t);
     }
 
-    private ErrorToken skipWhitespace() {
-        enum CommentType {
-            SINGLE_LINE,
-            MULTI_LINE
-        }
-        CommentType currentCommentType = null;
-        int multiLineCommentDepth = 0;
-        int commentStart = -1;
+    /// @return the start of an unterminated multi line comment, or -1
+    private int skipWhitespace() {
         while (hasMore(0)) {
             switch (peek()) {
-                case ' ', '\t' -> this.pos++;
-                case '\n', '\r' -> {
-                    this.pos++;
-                    this.lineStart = this.pos;
-                    this.line++;
-                    if (currentCommentType == CommentType.SINGLE_LINE) {
-                        currentCommentType = null;
-                    }
-                }
+                case ' ', '\t', '\n', '\r' -> this.pos = skipBlanks(this.pos + 1);
                 case '/' -> {
-                    if (currentCommentType == CommentType.SINGLE_LINE) {
-                        this.pos++;
-                        continue;
+                    if (!hasMore(1)) {
+                        return -1;
                     }
-                    if (hasMore(1)) {
-                        if (peek(1) == '/' && currentCommentType == null) {
-                            currentCommentType = CommentType.SINGLE_LINE;
-                        } else if (peek(1) == '*') {
-                            currentCommentType = CommentType.MULTI_LINE;
-                            multiLineCommentDepth++;
-                        } else {
-                            return null;
+                    if (peek(1) == '/') {
+                        this.pos = skipLineComment(this.pos + 2);
+                    } else if (peek(1) == '*') {
+                        int unterminated = skipMultiLineComment();
+                        if (unterminated >= 0) {
+                            return unterminated;
                         }
-                        commentStart = this.pos;
-                        this.pos += 2;
-                        continue;
-                    }
-                    // are we in a multi line comment of any depth?
-                    if (multiLineCommentDepth > 0) {
-                        this.pos++;
-                        continue;
+                    } else {
+                        return -1;
                     }
-                    return null;
                 }
                 default -> {
-                    if (currentCommentType == CommentType.MULTI_LINE) {
-                        if (peek() == '*' && hasMore(1) && peek(1) == '/') {
-                            this.pos += 2;
-                            multiLineCommentDepth--;
-                            currentCommentType = multiLineCommentDepth == 0 ? null : CommentType.MULTI_LINE;
-                        } else {
-                            this.pos++;
-                        }
-                        continue;
-                    } else if (currentCommentType == CommentType.SINGLE_LINE) {
-                        this.pos++;
-                        continue;
-                    }
-                    return null;
+                    return -1;
                 }
             }
         }
-        if (!hasMore(0) && currentCommentType == CommentType.MULTI_LINE) {
-            return new ErrorToken(this.source.substring(commentStart), buildSpan(0));
+        return -1;
+    }
+
+    /// @return the start of the last opened comment if the comment is unterminated, or -1
+    private int skipMultiLineComment() {
+        int commentStart = this.pos;
+        int depth = 1;
+        int p = this.pos + 2;
+        while (true) {
+            p = findCommentDelimiter(p);
+            if (p + 1 >= this.length) {
+                // a single char left can't close the comment anymore
+                this.pos = this.length;
+                return commentStart;
+            }
+            byte next = this.source.get(ValueLayout.JAVA_BYTE, p + 1);
+            if (this.source.get(ValueLayout.JAVA_BYTE, p) == '*') {
+                if (next == '/') {
+                    p += 2;
+                    if (--depth == 0) {
+                        this.pos = p;
+                        return -1;
+                    }
+                    continue;
+                }
+            } else if (next == '*') {
+                commentStart = p;
+                depth++;
+                p += 2;
+                continue;
+            }
+            p++;
         }
-        return null;
     }
 
-    private Separator separator(SeparatorType parenOpen) {
-        return new Separator(parenOpen, buildSpan(1));
+    private int skipBlanks(int p) {
+        while (p + Long.BYTES <= this.length) {
+            long word = this.source.get(WORD, p);
+            long blanks = matches(word, ' ') | matches(word, '\t') | matches(word, '\n') | matches(word, '\r');
+            if (blanks != HIGH_BITS) {
+                return p + (Long.numberOfTrailingZeros(~blanks & HIGH_BITS) >>> 3);
+            }
+            p += Long.BYTES;
+        }
+        while (p < this.length) {
+            byte b = this.source.get(ValueLayout.JAVA_BYTE, p);
+            if (b != ' ' && b != '\t' && b != '\n' && b != '\r') {
+                return p;
+            }
+            p++;
+        }
+        return p;
     }
 
-    private Token lexIdentifierOrKeyword() {
-        int off = 1;
-        while (hasMore(off) && isIdentifierChar(peek(off))) {
-            off++;
+    private int skipLineComment(int p) {
+        while (p + Long.BYTES <= this.length) {
+            long word = this.source.get(WORD, p);
+            long found = matches(word, '\n') | matches(word, '\r');
+            if (found != 0) {
+                return p + (Long.numberOfTrailingZeros(found) >>> 3);
+            }
+            p += Long.BYTES;
         }
-        String id = this.source.substring(this.pos, this.pos + off);
-        // This is a naive solution. Using a better data structure (hashmap, trie) likely performs better.
-        for (KeywordType value : KeywordType.values()) {
-            if (value.keyword().equals(id)) {
-                return new Keyword(value, buildSpan(off));
+        while (p < this.length) {
+            byte b = this.source.get(ValueLayout.JAVA_BYTE, p);
+            if (b == '\n' || b == '\r') {
+                return p;
             }
+            p++;
         }
-        return new Identifier(id, buildSpan(off));
+        return p;
     }
 
-    private Token lexNumber() {
-        if (isHexPrefix()) {
-            int off = 2;
-            while (hasMore(off) && isHex(peek(off))) {
-                off++;
+    private int findCommentDelimiter(int p) {
+        while (p + Long.BYTES <= this.length) {
+            long word = this.source.get(WORD, p);
+            long found = matches(word, '*') | matches(word, '/');
+            if (found != 0) {
+                return p + (Long.numberOfTrailingZeros(found) >>> 3);
             }
-            if (off == 2) {
-                // 0x without any further hex digits
-                return new ErrorToken(this.source.substring(this.pos, this.pos + off), buildSpan(2));
+            p += Long.BYTES;
+        }
+        while (p < this.length) {
+            byte b = this.source.get(ValueLayout.JAVA_BYTE, p);
+            if (b == '*' || b == '/') {
+                return p;
             }
-            return new NumberLiteral(this.source.substring(this.pos, this.pos + off), 16, buildSpan(off));
+            p++;
+        }
+        return p;
+    }
+
+    /// SWAR byte comparison: {@return a word with the high bit set in exactly the bytes of `word` equal to `c`}
+    private static long matches(long word, char c) {
+        long x = word ^ (LOW_BITS * c);
+        // x has a zero byte where word matches, see "Bit Twiddling Hacks: Determine if a word has a zero byte".
+        // This variant is exact, no carry can cross byte boundaries
+        long y = (x & ~HIGH_BITS) + ~HIGH_BITS;
+        return ~(y | x | ~HIGH_BITS);
+    }
+
+    private TokenKind identifierOrKeyword(int length, int hash) {
+        KeywordType keyword = lookupKeyword(length);
+        if (keyword != null) {
+            return TokenKind.of(keyword);
         }
-        int off = 1;
-        while (hasMore(off) && isNumeric(peek(off))) {
-            off++;
+        this.tokenValue = this.symbols.intern(this.source, this.pos, this.pos + length, hash);
+        return TokenKind.IDENTIFIER;
+    }
+
+    private KeywordType lookupKeyword(int length) {
+        char first = peek();
+        if (first >= KEYWORDS_BY_FIRST_CHAR.length) {
+            return null;
         }
-        if (peek() == '0' && off > 1) {
-            // leading zero is not allowed
-            return new ErrorToken(this.source.substring(this.pos, this.pos + off), buildSpan(off));
+        for (KeywordType candidate : KEYWORDS_BY_FIRST_CHAR[first]) {
+            String keyword = candidate.keyword();
+            if (keyword.length() == length && matches(keyword)) {
+                return candidate;
+            }
         }
-        return new NumberLiteral(this.source.substring(this.pos, this.pos + off), 10, buildSpan(off));
+        return null;
     }
 
-    private boolean isHexPrefix() {
-        return peek() == '0' && hasMore(1) && (peek(1) == 'x' || peek(1) == 'X');
+    private static KeywordType[][] keywordsByFirstChar() {
+        KeywordType[][] table = new KeywordType[128][0];
+        for (KeywordType value : KeywordType.values()) {
+            char first = value.keyword().charAt(0);
+            KeywordType[] bucket = Arrays.copyOf(table[first], table[first].length + 1);
+            bucket[bucket.length - 1] = value;
+            table[first] = bucket;
+        }
+        return table;
     }
 
-    private boolean isIdentifierChar(char c) {
-        return c == '_'
-            || c >= 'a' && c <= 'z'
-            || c >= 'A' && c <= 'Z'
-            || c >= '0' && c <= '9';
+    private boolean matches(String keyword) {
+        for (int i = 0; i < keyword.length(); i++) {
+            if (peek(i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private boolean isNumeric(char c) {
-        return c >= '0' && c <= '9';
+    /// 2^31 is in range, as it is valid as operand of a negation, and represented as [Integer#MIN_VALUE].
+    private int decimalValue(int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (this.source.get(ValueLayout.JAVA_BYTE, i) - '0');
+            if (value > MAX_DECIMAL) {
+                return OUT_OF_RANGE;
+            }
+        }
+        return (int) value;
     }
 
-    private boolean isHex(char c) {
-        return isNumeric(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    private int hexValue(int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = (value << 4) | Character.digit(this.source.get(ValueLayout.JAVA_BYTE, i), 16);
+            if (value > MAX_HEX) {
+                return OUT_OF_RANGE;
+            }
+        }
+        return (int) value;
     }
 
-    private Token singleOrAssign(OperatorType single, OperatorType assign) {
-        if (hasMore(1) && peek(1) == '=') {
-            return new Operator(assign, buildSpan(2));
+    /// This is only needed for a value of [#OUT_OF_RANGE], to tell it apart from `0xFFFFFFFF`.
+    private boolean hexOutOfRange(int start, int end) {
+        while (start < end && this.source.get(ValueLayout.JAVA_BYTE, start) == '0') {
+            start++;
         }
-        return new Operator(single, buildSpan(1));
+        return end - start > 8;
     }
 
-    private Span buildSpan(int proceed) {
-        int start = this.pos;
-        this.pos += proceed;
-        Position.SimplePosition s = new Position.SimplePosition(this.line, start - this.lineStart);
-        Position.SimplePosition e = new Position.SimplePosition(this.line, start - this.lineStart + proceed);
-        return new Span.SimpleSpan(s, e);
+    private String text(int start, int end) {
+        byte[] bytes = this.source.asSlice(start, end - start).toArray(ValueLayout.JAVA_BYTE);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
     }
 
     private char peek() {
-        return this.source.charAt(this.pos);
+        return peek(0);
     }
 
     private boolean hasMore(int offset) {
-        return this.pos + offset < this.source.length();
+        return this.pos + offset < this.length;
     }
 
     private char peek(int offset) {
-        return this.source.charAt(this.pos + offset);
+        return (char) (this.source.get(ValueLayout.JAVA_BYTE, this.pos + offset) & 0xFF);
     }
 
 }
@@ -2,7 +2,10 @@ package edu.kit.kastel.vads.compiler.lexer;
 
 import edu.kit.kastel.vads.compiler.Span;
 
-public record NumberLiteral(String value, int base, Span span) implements Token {
+/// A number literal as written in the source.
+/// @param intValue the value wrapped to 32 bits, only meaningful if it is not `outOfRange`
+/// @param outOfRange whether the value doesn't fit into 32 bits, or is larger than 2^31 for a decimal literal
+public record NumberLiteral(String value, int base, int intValue, boolean outOfRange, Span span) implements Token {
     @Override
     public String asString() {
         return value();
@@ -0,0 +1,185 @@
+package edu.kit.kastel.vads.compiler.lexer;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/// Lexes a large source in chunks in parallel.
+///
+/// The source is split after line breaks, and each chunk is lexed as if it started outside
+/// of any comment. The tokens of a chunk are correct from the first one that starts where
+/// the correct token stream continues, tokens before that are lexed again sequentially.
+public final class ParallelLexer {
+    // smaller chunks don't pay off the overhead of a task
+    private static final int MIN_CHUNK_SIZE = 1 << 20;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private ParallelLexer() {
+    }
+
+    /// The lexer must not have been advanced yet, it is left at the end of its source.
+    public static TokenBuffer lexAll(Lexer lexer, ForkJoinPool pool) {
+        return lexAll(lexer, pool, MIN_CHUNK_SIZE);
+    }
+
+    static TokenBuffer lexAll(Lexer lexer, ForkJoinPool pool, int minChunkSize) {
+        MemorySegment source = lexer.source();
+        int length = (int) source.byteSize();
+        List<Chunk> chunks = split(source, length, pool.getParallelism(), minChunkSize);
+        if (chunks.size() <= 1) {
+            return TokenBuffer.lexAll(lexer);
+        }
+        joinAll(chunks.stream().map(chunk -> pool.submit(() -> chunk.lex(lexer, length))).toList());
+
+        List<Piece> pieces = stitch(lexer, chunks, length);
+        int size = 0;
+        for (Piece piece : pieces) {
+            piece.at = size;
+            size += piece.to - piece.from;
+        }
+        TokenBuffer result = new TokenBuffer(size);
+        result.resize(size);
+        joinAll(pieces.stream().map(piece -> pool.submit(
+            () -> result.copy(piece.tokens, piece.from, piece.to, piece.at, piece.symbols)
+        )).toList());
+        lexer.seek(length);
+        return result;
+    }
+
+    private static List<Chunk> split(MemorySegment source, int length, int parallelism, int minChunkSize) {
+        int count = Math.max(1, Math.min(parallelism * CHUNKS_PER_THREAD, length / minChunkSize));
+        List<Chunk> chunks = new ArrayList<>(count);
+        int start = 0;
+        for (int i = 1; i <= count && start < length; i++) {
+            int end = i == count ? length : afterLineBreak(source, Math.max(start, (int) ((long) length * i / count)), length);
+            chunks.add(new Chunk(start, end));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static int afterLineBreak(MemorySegment source, int offset, int length) {
+        while (offset < length) {
+            if (source.get(ValueLayout.JAVA_BYTE, offset++) == '\n') {
+                break;
+            }
+        }
+        return offset;
+    }
+
+    private static List<Piece> stitch(Lexer lexer, List<Chunk> chunks, int length) {
+        SymbolTable symbols = lexer.symbols();
+        List<Piece> pieces = new ArrayList<>();
+        // the correct token stream continues here, which is a token start, the first chunk start or the end
+        int position = chunks.getFirst().start;
+        for (Chunk chunk : chunks) {
+            if (position >= chunk.resume) {
+                // everything in this chunk was skipped, e.g., in a long comment
+                continue;
+            }
+            int from = position == chunk.start ? 0 : chunk.indexOfStart(position);
+            if (from < 0) {
+                TokenBuffer fixed = new TokenBuffer(16);
+                lexer.seek(position);
+                position = length;
+                while (lexer.advance()) {
+                    int tokenStart = lexer.tokenStart();
+                    if (lexer.isUnterminatedComment()) {
+                        fixed.add(lexer);
+                        break;
+                    }
+                    if (tokenStart >= chunk.resume) {
+                        position = tokenStart;
+                        break;
+                    }
+                    from = chunk.indexOfStart(tokenStart);
+                    if (from >= 0) {
+                        break;
+                    }
+                    fixed.add(lexer);
+                }
+                pieces.add(new Piece(fixed, 0, fixed.size(), null));
+                if (from < 0) {
+                    continue;
+                }
+            }
+            pieces.add(new Piece(chunk.tokens, from, chunk.tokens.size(), chunk.symbolMap(symbols)));
+            position = chunk.resume;
+        }
+        return pieces;
+    }
+
+    private static void joinAll(List<? extends ForkJoinTask<?>> tasks) {
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
+    private static final class Chunk {
+        private final int start;
+        private final int end;
+        private final SymbolTable symbols = new SymbolTable();
+        private final TokenBuffer tokens = new TokenBuffer(1024);
+        // the start of the first token at or after the end, or the end of the source
+        private int resume;
+        private boolean unterminated;
+
+        Chunk(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        void lex(Lexer lexer, int length) {
+            Lexer chunkLexer = new Lexer(lexer.source(), this.symbols, lexer.lines());
+            chunkLexer.seek(this.start);
+            this.resume = length;
+            while (chunkLexer.advance()) {
+                if (chunkLexer.isUnterminatedComment()) {
+                    // reaches the end of the source, even if it starts behind the end of the chunk
+                    this.tokens.add(chunkLexer);
+                    this.unterminated = true;
+                    return;
+                }
+                if (chunkLexer.tokenStart() >= this.end) {
+                    this.resume = chunkLexer.tokenStart();
+                    return;
+                }
+                this.tokens.add(chunkLexer);
+            }
+        }
+
+        int indexOfStart(int offset) {
+            int index = this.tokens.indexOfStart(offset, 0);
+            if (this.unterminated && index == this.tokens.size() - 1) {
+                return -1;
+            }
+            return index;
+        }
+
+        int[] symbolMap(SymbolTable global) {
+            int[] map = new int[this.symbols.size()];
+            for (int symbol = 0; symbol < map.length; symbol++) {
+                map[symbol] = global.intern(this.symbols.name(symbol));
+            }
+            return map;
+        }
+    }
+
+    private static final class Piece {
+        private final TokenBuffer tokens;
+        private final int from;
+        private final int to;
+        private final int[] symbols;
+        private int at;
+
+        Piece(TokenBuffer tokens, int from, int to, int[] symbols) {
+            this.tokens = tokens;
+            this.from = from;
+            this.to = to;
+            this.symbols = symbols;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package edu.kit.kastel.vads.compiler.lexer;
+
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/// Interns names of one compilation and assigns them dense symbol ids, starting at 0.
+/// The keywords are interned first, the symbol of a keyword is the ordinal of its [KeywordType].
+public final class SymbolTable {
+    private static final int INITIAL_CAPACITY = 64;
+    // maps hash slots to symbol + 1, 0 marks a free slot
+    private int[] slots = new int[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int size;
+
+    public SymbolTable() {
+        for (KeywordType keyword : KeywordType.values()) {
+            int symbol = intern(keyword.keyword());
+            assert symbol == keyword.ordinal() : "keywords must be interned in order";
+        }
+    }
+
+    public int intern(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            hash = step(hash, name.charAt(i));
+        }
+        int slot = slot(hash);
+        while (this.slots[slot] != 0) {
+            int symbol = this.slots[slot] - 1;
+            if (this.hashes[symbol] == hash && this.names[symbol].equals(name)) {
+                return symbol;
+            }
+            slot = (slot + 1) & (this.slots.length - 1);
+        }
+        return add(slot, hash, name);
+    }
+
+    /// The `hash` must be computed by [#step(int, char)] over the bytes from `start` to `end`.
+    int intern(MemorySegment source, int start, int end, int hash) {
+        int slot = slot(hash);
+        while (this.slots[slot] != 0) {
+            int symbol = this.slots[slot] - 1;
+            if (this.hashes[symbol] == hash && matches(this.names[symbol], source, start, end)) {
+                return symbol;
+            }
+            slot = (slot + 1) & (this.slots.length - 1);
+        }
+        byte[] bytes = source.asSlice(start, end - start).toArray(ValueLayout.JAVA_BYTE);
+        return add(slot, hash, new String(bytes, StandardCharsets.ISO_8859_1));
+    }
+
+    public String name(int symbol) {
+        return this.names[symbol];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    static int step(int hash, char c) {
+        return 31 * hash + c;
+    }
+
+    private int add(int slot, int hash, String name) {
+        int symbol = this.size++;
+        if (symbol == this.names.length) {
+            this.names = Arrays.copyOf(this.names, symbol * 2);
+            this.hashes = Arrays.copyOf(this.hashes, symbol * 2);
+        }
+        this.names[symbol] = name;
+        this.hashes[symbol] = hash;
+        this.slots[slot] = symbol + 1;
+        // keep the load factor at 0.5 at most
+        if (this.size * 2 > this.slots.length) {
+            rehash();
+        }
+        return symbol;
+    }
+
+    private void rehash() {
+        this.slots = new int[this.slots.length * 2];
+        for (int symbol = 0; symbol < this.size; symbol++) {
+            int slot = slot(this.hashes[symbol]);
+            while (this.slots[slot] != 0) {
+                slot = (slot + 1) & (this.slots.length - 1);
+            }
+            this.slots[slot] = symbol + 1;
+        }
+    }
+
+    private int slot(int hash) {
+        // spread the bits, the low bits of the polynomial hash of similar names are similar too
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & (this.slots.length - 1);
+    }
+
+    private static boolean matches(String name, MemorySegment source, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (name.charAt(i) != (char) (source.get(ValueLayout.JAVA_BYTE, start + i) & 0xFF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,194 @@
+package edu.kit.kastel.vads.compiler.lexer;
+
+import java.util.Arrays;
+
+/// All tokens of a source, stored packed as kind, start and end offset and value in parallel arrays.
+///
+/// The arrays are a gap buffer: the free capacity is a gap behind the last [#replace] rather than at the end.
+/// The offsets of the tokens behind the gap are stored relative to a shift shared by all of them,
+/// so a replacement only moves the tokens between the previous and the current replacement,
+/// and the offsets behind it are moved by changing the shift. Appending moves the gap to the end.
+public final class TokenBuffer {
+    private int[] kinds;
+    private int[] starts;
+    private int[] ends;
+    private int[] values;
+    private int size;
+    // the index of the first token behind the gap, all tokens from here on are stored at the end of the arrays
+    private int gapStart;
+    // added to the stored offsets of the tokens behind the gap
+    private int tailShift;
+
+    public TokenBuffer(int capacity) {
+        capacity = Math.max(capacity, 16);
+        this.kinds = new int[capacity];
+        this.starts = new int[capacity];
+        this.ends = new int[capacity];
+        this.values = new int[capacity];
+    }
+
+    public static TokenBuffer lexAll(Lexer lexer) {
+        TokenBuffer buffer = new TokenBuffer(1024);
+        while (lexer.advance()) {
+            buffer.add(lexer);
+        }
+        return buffer;
+    }
+
+    public void add(Lexer lexer) {
+        moveGap(this.size);
+        ensureGap(1);
+        this.kinds[this.size] = lexer.kind().ordinal();
+        this.starts[this.size] = lexer.tokenStart();
+        this.ends[this.size] = lexer.tokenEnd();
+        this.values[this.size] = lexer.tokenValue();
+        this.size++;
+        this.gapStart = this.size;
+    }
+
+    /// The offsets of the tokens behind the replaced ones are moved by `shift`.
+    public void replace(int from, int to, TokenBuffer replacement, int shift) {
+        replacement.moveGap(replacement.size);
+        int count = replacement.size;
+        moveGap(to);
+        // drop the replaced tokens into the gap, and move everything behind them
+        this.size -= to - from;
+        this.gapStart = from;
+        this.tailShift += shift;
+        ensureGap(count);
+        System.arraycopy(replacement.kinds, 0, this.kinds, from, count);
+        System.arraycopy(replacement.starts, 0, this.starts, from, count);
+        System.arraycopy(replacement.ends, 0, this.ends, from, count);
+        System.arraycopy(replacement.values, 0, this.values, from, count);
+        this.size += count;
+        this.gapStart += count;
+    }
+
+    void resize(int size) {
+        moveGap(this.size);
+        ensureGap(size - this.size);
+        this.size = size;
+        this.gapStart = size;
+    }
+
+    /// Both buffers must have been filled by appending and [#resize], so their gaps are at the end.
+    void copy(TokenBuffer other, int from, int to, int at, int[] symbols) {
+        assert this.gapStart == this.size && other.gapStart == other.size : "copy needs the gaps at the end";
+        int count = to - from;
+        System.arraycopy(other.kinds, from, this.kinds, at, count);
+        System.arraycopy(other.starts, from, this.starts, at, count);
+        System.arraycopy(other.ends, from, this.ends, at, count);
+        System.arraycopy(other.values, from, this.values, at, count);
+        if (symbols != null) {
+            int identifier = TokenKind.IDENTIFIER.ordinal();
+            for (int i = at; i < at + count; i++) {
+                if (this.kinds[i] == identifier) {
+                    this.values[i] = symbols[this.values[i]];
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public TokenKind kind(int index) {
+        return TokenKind.ofOrdinal(this.kinds[physical(index)]);
+    }
+
+    public int start(int index) {
+        return index < this.gapStart ? this.starts[index] : this.starts[physical(index)] + this.tailShift;
+    }
+
+    public int end(int index) {
+        return index < this.gapStart ? this.ends[index] : this.ends[physical(index)] + this.tailShift;
+    }
+
+    public int value(int index) {
+        return this.values[physical(index)];
+    }
+
+    /// This is the first token an edit at `offset` can change, the token before it is already followed by other chars.
+    public int firstEndingAtOrAfter(int offset) {
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (end(middle) < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public int indexOfStart(int offset, int from) {
+        int low = from;
+        int high = this.size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int start = start(middle);
+            if (start < offset) {
+                low = middle + 1;
+            } else if (start > offset) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int physical(int index) {
+        return index < this.gapStart ? index : index + this.kinds.length - this.size;
+    }
+
+    private void moveGap(int index) {
+        int gap = this.kinds.length - this.size;
+        if (index < this.gapStart) {
+            // tokens from index to gapStart go behind the gap
+            int count = this.gapStart - index;
+            moveTokens(index, index + gap, count);
+            for (int i = index + gap; i < index + gap + count; i++) {
+                this.starts[i] -= this.tailShift;
+                this.ends[i] -= this.tailShift;
+            }
+        } else if (index > this.gapStart) {
+            // tokens from gapStart to index come in front of the gap
+            int count = index - this.gapStart;
+            moveTokens(this.gapStart + gap, this.gapStart, count);
+            for (int i = this.gapStart; i < index; i++) {
+                this.starts[i] += this.tailShift;
+                this.ends[i] += this.tailShift;
+            }
+        }
+        this.gapStart = index;
+    }
+
+    private void moveTokens(int from, int to, int count) {
+        System.arraycopy(this.kinds, from, this.kinds, to, count);
+        System.arraycopy(this.starts, from, this.starts, to, count);
+        System.arraycopy(this.ends, from, this.ends, to, count);
+        System.arraycopy(this.values, from, this.values, to, count);
+    }
+
+    private void ensureGap(int count) {
+        int capacity = this.kinds.length;
+        if (this.size + count > capacity) {
+            int newCapacity = Math.max(this.size + count, capacity * 2);
+            int tail = this.size - this.gapStart;
+            this.kinds = grow(this.kinds, newCapacity, tail);
+            this.starts = grow(this.starts, newCapacity, tail);
+            this.ends = grow(this.ends, newCapacity, tail);
+            this.values = grow(this.values, newCapacity, tail);
+        }
+    }
+
+    private static int[] grow(int[] array, int capacity, int tail) {
+        int[] grown = Arrays.copyOf(array, capacity);
+        System.arraycopy(array, array.length - tail, grown, capacity - tail, tail);
+        return grown;
+    }
+}
@@ -0,0 +1,124 @@
+package edu.kit.kastel.vads.compiler.lexer;
+
+import edu.kit.kastel.vads.compiler.lexer.Operator.OperatorType;
+import edu.kit.kastel.vads.compiler.lexer.Separator.SeparatorType;
+
+/// The kind of a token without any of its data, so tokens can be stored packed.
+public enum TokenKind {
+    ERROR,
+    IDENTIFIER,
+    DECIMAL_LITERAL,
+    HEX_LITERAL,
+
+    STRUCT(KeywordType.STRUCT),
+    IF(KeywordType.IF),
+    ELSE(KeywordType.ELSE),
+    WHILE(KeywordType.WHILE),
+    FOR(KeywordType.FOR),
+    CONTINUE(KeywordType.CONTINUE),
+    BREAK(KeywordType.BREAK),
+    RETURN(KeywordType.RETURN),
+    ASSERT(KeywordType.ASSERT),
+    TRUE(KeywordType.TRUE),
+    FALSE(KeywordType.FALSE),
+    NULL(KeywordType.NULL),
+    PRINT(KeywordType.PRINT),
+    READ(KeywordType.READ),
+    ALLOC(KeywordType.ALLOC),
+    ALLOC_ARRAY(KeywordType.ALLOC_ARRAY),
+    INT(KeywordType.INT),
+    BOOL(KeywordType.BOOL),
+    VOID(KeywordType.VOID),
+    CHAR(KeywordType.CHAR),
+    STRING(KeywordType.STRING),
+
+    ASSIGN_MINUS(OperatorType.ASSIGN_MINUS),
+    MINUS(OperatorType.MINUS),
+    ASSIGN_PLUS(OperatorType.ASSIGN_PLUS),
+    PLUS(OperatorType.PLUS),
+    MUL(OperatorType.MUL),
+    ASSIGN_MUL(OperatorType.ASSIGN_MUL),
+    ASSIGN_DIV(OperatorType.ASSIGN_DIV),
+    DIV(OperatorType.DIV),
+    ASSIGN_MOD(OperatorType.ASSIGN_MOD),
+    MOD(OperatorType.MOD),
+    ASSIGN(OperatorType.ASSIGN),
+
+    PAREN_OPEN(SeparatorType.PAREN_OPEN),
+    PAREN_CLOSE(SeparatorType.PAREN_CLOSE),
+    BRACE_OPEN(SeparatorType.BRACE_OPEN),
+    BRACE_CLOSE(SeparatorType.BRACE_CLOSE),
+    SEMICOLON(SeparatorType.SEMICOLON),
+    ;
+
+    private static final TokenKind[] VALUES = values();
+    private static final TokenKind[] KEYWORDS = new TokenKind[KeywordType.values().length];
+    private static final TokenKind[] OPERATORS = new TokenKind[OperatorType.values().length];
+    private static final TokenKind[] SEPARATORS = new TokenKind[SeparatorType.values().length];
+
+    static {
+        for (TokenKind kind : VALUES) {
+            if (kind.keywordType != null) {
+                KEYWORDS[kind.keywordType.ordinal()] = kind;
+            } else if (kind.operatorType != null) {
+                OPERATORS[kind.operatorType.ordinal()] = kind;
+            } else if (kind.separatorType != null) {
+                SEPARATORS[kind.separatorType.ordinal()] = kind;
+            }
+        }
+    }
+
+    private final KeywordType keywordType;
+    private final OperatorType operatorType;
+    private final SeparatorType separatorType;
+
+    TokenKind() {
+        this(null, null, null);
+    }
+
+    TokenKind(KeywordType keywordType) {
+        this(keywordType, null, null);
+    }
+
+    TokenKind(OperatorType operatorType) {
+        this(null, operatorType, null);
+    }
+
+    TokenKind(SeparatorType separatorType) {
+        this(null, null, separatorType);
+    }
+
+    TokenKind(KeywordType keywordType, OperatorType operatorType, SeparatorType separatorType) {
+        this.keywordType = keywordType;
+        this.operatorType = operatorType;
+        this.separatorType = separatorType;
+    }
+
+    public static TokenKind of(KeywordType type) {
+        return KEYWORDS[type.ordinal()];
+    }
+
+    public static TokenKind of(OperatorType type) {
+        return OPERATORS[type.ordinal()];
+    }
+
+    public static TokenKind of(SeparatorType type) {
+        return SEPARATORS[type.ordinal()];
+    }
+
+    public static TokenKind ofOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public KeywordType keywordType() {
+        return this.keywordType;
+    }
+
+    public OperatorType operatorType() {
+        return this.operatorType;
+    }
+
+    public SeparatorType separatorType() {
+        return this.separatorType;
+    }
+}
@@ -0,0 +1,158 @@
+package edu.kit.kastel.vads.compiler.lexer;
+
+import edu.kit.kastel.vads.compiler.lexer.Operator.OperatorType;
+import edu.kit.kastel.vads.compiler.lexer.Separator.SeparatorType;
+
+import java.util.Arrays;
+
+/// The deterministic automaton recognizing a single token, stored as flat tables.
+/// No token of the language requires backtracking, so every state except [#START] has a kind to accept.
+final class TransitionTable {
+    static final int START = 0;
+    static final int DEAD = -1;
+
+    // fixed char classes, operators and separators get one class per char
+    private static final int OTHER = 0;
+    private static final int LETTER = 1;
+    private static final int HEX_LETTER = 2;
+    private static final int X = 3;
+    private static final int ZERO = 4;
+    private static final int DIGIT = 5;
+    private static final int FIXED_CLASSES = 6;
+
+    private static final byte[] CLASSES = new byte[128];
+    private static final int CLASS_COUNT;
+    // successor of state s on class c at s * CLASS_COUNT + c, DEAD if there is none
+    private static final byte[] TRANSITIONS;
+    private static final TokenKind[] KINDS;
+
+    static {
+        int classes = FIXED_CLASSES;
+        for (char c = 'a'; c <= 'z'; c++) {
+            CLASSES[c] = LETTER;
+            CLASSES[Character.toUpperCase(c)] = LETTER;
+        }
+        for (char c = 'a'; c <= 'f'; c++) {
+            CLASSES[c] = HEX_LETTER;
+            CLASSES[Character.toUpperCase(c)] = HEX_LETTER;
+        }
+        CLASSES['_'] = LETTER;
+        CLASSES['x'] = X;
+        CLASSES['X'] = X;
+        CLASSES['0'] = ZERO;
+        for (char c = '1'; c <= '9'; c++) {
+            CLASSES[c] = DIGIT;
+        }
+        for (OperatorType type : OperatorType.values()) {
+            classes = addClass(type.toString().charAt(0), classes);
+        }
+        for (SeparatorType type : SeparatorType.values()) {
+            classes = addClass(type.toString().charAt(0), classes);
+        }
+        CLASS_COUNT = classes;
+
+        Builder builder = new Builder();
+        int start = builder.state(TokenKind.ERROR);
+        assert start == START;
+        // any char that can't start a token is a single char error token
+        int error = builder.state(TokenKind.ERROR);
+        for (int c = 0; c < CLASS_COUNT; c++) {
+            builder.on(start, error, c);
+        }
+
+        int identifier = builder.state(TokenKind.IDENTIFIER);
+        builder.on(start, identifier, LETTER, HEX_LETTER, X);
+        builder.on(identifier, identifier, LETTER, HEX_LETTER, X, ZERO, DIGIT);
+
+        int decimal = builder.state(TokenKind.DECIMAL_LITERAL);
+        builder.on(start, decimal, DIGIT);
+        builder.on(decimal, decimal, ZERO, DIGIT);
+        int zero = builder.state(TokenKind.DECIMAL_LITERAL);
+        builder.on(start, zero, ZERO);
+        // leading zero is not allowed, the whole number is an error token
+        int leadingZero = builder.state(TokenKind.ERROR);
+        builder.on(zero, leadingZero, ZERO, DIGIT);
+        builder.on(leadingZero, leadingZero, ZERO, DIGIT);
+        // 0x without any further hex digits is an error token
+        int hexPrefix = builder.state(TokenKind.ERROR);
+        builder.on(zero, hexPrefix, X);
+        int hex = builder.state(TokenKind.HEX_LITERAL);
+        builder.on(hexPrefix, hex, ZERO, DIGIT, HEX_LETTER);
+        builder.on(hex, hex, ZERO, DIGIT, HEX_LETTER);
+
+        // single chars first, so the compound assignments can extend them
+        int[] singleCharStates = new int[CLASS_COUNT];
+        for (OperatorType type : OperatorType.values()) {
+            String value = type.toString();
+            if (value.length() == 1) {
+                singleCharStates[CLASSES[value.charAt(0)]] = builder.token(start, value.charAt(0), TokenKind.of(type));
+            }
+        }
+        for (SeparatorType type : SeparatorType.values()) {
+            builder.token(start, type.toString().charAt(0), TokenKind.of(type));
+        }
+        for (OperatorType type : OperatorType.values()) {
+            String value = type.toString();
+            if (value.length() == 2) {
+                builder.token(singleCharStates[CLASSES[value.charAt(0)]], value.charAt(1), TokenKind.of(type));
+            }
+        }
+        TRANSITIONS = builder.transitions();
+        KINDS = builder.kinds();
+    }
+
+    private TransitionTable() {
+    }
+
+    static int next(int state, char c) {
+        int charClass = c < CLASSES.length ? CLASSES[c] : OTHER;
+        return TRANSITIONS[state * CLASS_COUNT + charClass];
+    }
+
+    static TokenKind kind(int state) {
+        return KINDS[state];
+    }
+
+    private static int addClass(char c, int classes) {
+        if (CLASSES[c] != OTHER) {
+            return classes;
+        }
+        CLASSES[c] = (byte) classes;
+        return classes + 1;
+    }
+
+    private static final class Builder {
+        private byte[] transitions = new byte[0];
+        private TokenKind[] kinds = new TokenKind[0];
+        private int size;
+
+        int state(TokenKind kind) {
+            int state = this.size++;
+            this.transitions = Arrays.copyOf(this.transitions, this.size * CLASS_COUNT);
+            Arrays.fill(this.transitions, state * CLASS_COUNT, this.size * CLASS_COUNT, (byte) DEAD);
+            this.kinds = Arrays.copyOf(this.kinds, this.size);
+            this.kinds[state] = kind;
+            return state;
+        }
+
+        void on(int from, int to, int... charClasses) {
+            for (int charClass : charClasses) {
+                this.transitions[from * CLASS_COUNT + charClass] = (byte) to;
+            }
+        }
+
+        int token(int from, char c, TokenKind kind) {
+            int state = state(kind);
+            on(from, state, CLASSES[c]);
+            return state;
+        }
+
+        byte[] transitions() {
+            return this.transitions;
+        }
+
+        TokenKind[] kinds() {
+            return this.kinds;
+        }
+    }
+}
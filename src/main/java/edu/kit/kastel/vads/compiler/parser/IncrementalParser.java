@@ -0,0 +1,357 @@
+package edu.kit.kastel.vads.compiler.parser;
+
+import edu.kit.kastel.vads.compiler.Anchor;
+import edu.kit.kastel.vads.compiler.LineMap;
+import edu.kit.kastel.vads.compiler.Span;
+import edu.kit.kastel.vads.compiler.lexer.Lexer;
+import edu.kit.kastel.vads.compiler.lexer.SymbolTable;
+import edu.kit.kastel.vads.compiler.lexer.Token;
+import edu.kit.kastel.vads.compiler.lexer.TokenBuffer;
+import edu.kit.kastel.vads.compiler.lexer.TokenKind;
+import edu.kit.kastel.vads.compiler.parser.ast.BlockTree;
+import edu.kit.kastel.vads.compiler.parser.ast.FunctionTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ProgramTree;
+import edu.kit.kastel.vads.compiler.parser.ast.StatementTree;
+
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/// Keeps the tokens and the tree of a source up to date while the source is edited.
+/// Only the tokens an edit touches are lexed again, and only the statements containing them are parsed again.
+/// As all trees share one [LineMap], trees returned before an edit must not be used for diagnostics afterward.
+public final class IncrementalParser {
+    // the chars lexed behind an edit at first, doubled while the changed tokens reach further
+    private static final int LEX_WINDOW = 256;
+    private final SymbolTable symbols;
+    private final LineMap lines;
+    // a gap buffer, the source is the bytes in front of gapStart followed by the bytes from gapEnd on
+    private byte[] source;
+    private int gapStart;
+    private int gapEnd;
+    // the length of the source, shared with the anchors relative to its end
+    private final Anchor.End sourceEnd;
+    private final TokenBuffer tokens;
+    private ProgramTree tree;
+    // the statements of the function body, their token positions and the anchors of their spans,
+    // only valid if tree is not null. From index split on, positions are relative to tokenCount
+    // and anchors are relative to the end of the source.
+    private final List<StatementTree> statements = new ArrayList<>();
+    private int[] statementStarts = new int[16];
+    private Anchor[] anchors = new Anchor[16];
+    private int split;
+    private int tokenCount;
+    private int braceClose;
+
+    public IncrementalParser(String source) {
+        this.source = source.getBytes(StandardCharsets.ISO_8859_1);
+        this.gapStart = this.source.length;
+        this.gapEnd = this.source.length;
+        this.sourceEnd = new Anchor.End(this.source.length);
+        Lexer lexer = Lexer.forBytes(this.source);
+        this.symbols = lexer.symbols();
+        this.lines = lexer.lines();
+        this.lines.reset(this::contiguousSource);
+        this.tokens = TokenBuffer.lexAll(lexer);
+    }
+
+    /// @throws ParseException if the current source is not a valid program
+    public ProgramTree parse() {
+        if (this.tree == null) {
+            IntList positions = new IntList();
+            List<Anchor> statementAnchors = new ArrayList<>();
+            GapTokenSource tokenSource = new GapTokenSource(0);
+            Parser parser = new Parser(tokenSource);
+            this.tree = parser.parseProgram(position -> {
+                Anchor anchor = new Anchor(this.sourceEnd, this.tokens.start(position));
+                tokenSource.anchorSpansAt(anchor);
+                positions.add(position);
+                statementAnchors.add(anchor);
+            });
+            this.statements.clear();
+            this.statements.addAll(this.tree.topLevelTrees().getFirst().body().statements());
+            // the last position is the one of the closing brace
+            this.braceClose = positions.removeLast();
+            statementAnchors.removeLast();
+            this.statementStarts = positions.toArray();
+            this.anchors = statementAnchors.toArray(new Anchor[0]);
+            this.split = this.statements.size();
+            this.tokenCount = this.tokens.size();
+        }
+        return this.tree;
+    }
+
+    /// @throws ParseException if the edited source is not a valid program
+    public ProgramTree edit(int start, int end, String replacement) {
+        Objects.checkFromToIndex(start, end, length());
+        byte[] inserted = replacement.getBytes(StandardCharsets.ISO_8859_1);
+        int delta = inserted.length - (end - start);
+        ProgramTree previous = this.tree;
+        if (previous != null) {
+            // the statements behind the replaced chars move with the end of the source
+            moveSplit(firstStatementAtOrAfter(end));
+        }
+        moveGap(end);
+        this.gapStart = start;
+        ensureGap(inserted.length);
+        System.arraycopy(inserted, 0, this.source, start, inserted.length);
+        this.gapStart += inserted.length;
+        this.sourceEnd.setLength(length() + delta);
+        this.lines.reset(this::contiguousSource);
+
+        int first = this.tokens.firstEndingAtOrAfter(start);
+        TokenBuffer relexed = new TokenBuffer(16);
+        int resume = relex(first, start + inserted.length, delta, relexed);
+        int tokenDelta = relexed.size() - (resume - first);
+        this.tokens.replace(first, resume, relexed, delta);
+
+        this.tree = null;
+        if (previous != null) {
+            this.tree = reparse(previous, first, resume, tokenDelta);
+        }
+        return parse();
+    }
+
+    /// @return the index of the first old token that is still valid, or the old number of tokens
+    private int relex(int first, int editEnd, int delta, TokenBuffer relexed) {
+        int lexFrom = first == 0 ? 0 : this.tokens.end(first - 1);
+        int window = LEX_WINDOW;
+        while (true) {
+            moveGap(Math.min(length(), this.gapStart + window));
+            boolean complete = this.gapStart == length();
+            Lexer lexer = Lexer.forEdit(
+                MemorySegment.ofArray(this.source).asSlice(0, this.gapStart), this.symbols, this.lines
+            );
+            lexer.seek(lexFrom);
+            while (lexer.advance()) {
+                if (!complete && lexer.tokenEnd() == this.gapStart) {
+                    // the token might continue behind the lexed chars
+                    break;
+                }
+                int tokenStart = lexer.tokenStart();
+                if (tokenStart >= editEnd) {
+                    // behind the edit, the rest is the same as before once we hit an old token start
+                    int old = this.tokens.indexOfStart(tokenStart - delta, first);
+                    if (old >= 0) {
+                        return old;
+                    }
+                }
+                relexed.add(lexer);
+                lexFrom = lexer.tokenEnd();
+            }
+            if (complete) {
+                return this.tokens.size();
+            }
+            window *= 2;
+        }
+    }
+
+    /// @return the new tree, or `null` if a full parse is needed
+    private ProgramTree reparse(ProgramTree previous, int first, int resume, int tokenDelta) {
+        int count = this.statements.size();
+        // the body directly follows the opening brace
+        int braceOpen = (count == 0 ? this.braceClose : statementStart(0)) - 1;
+        if (first <= braceOpen || resume > this.braceClose) {
+            return null;
+        }
+        // the statement containing the first changed token, or the closing brace
+        int damaged = Math.max(lastStatementAtOrBefore(first), 0);
+        int from = damaged == count ? this.braceClose : statementStart(damaged);
+        GapTokenSource tokenSource = new GapTokenSource(from);
+        Parser parser = new Parser(tokenSource);
+        int unchanged = resume + tokenDelta;
+        List<StatementTree> reparsed = new ArrayList<>();
+        IntList reparsedStarts = new IntList();
+        List<Anchor> reparsedAnchors = new ArrayList<>();
+        int reused;
+        try {
+            while (true) {
+                int position = tokenSource.position();
+                if (position >= unchanged) {
+                    int oldPosition = position - tokenDelta;
+                    reused = lastStatementAtOrBefore(oldPosition);
+                    if (reused >= damaged && statementStart(reused) == oldPosition) {
+                        break;
+                    }
+                    if (oldPosition == this.braceClose) {
+                        reused = count;
+                        break;
+                    }
+                }
+                if (tokenSource.peekKind() == TokenKind.BRACE_CLOSE) {
+                    // the closing brace is new, we can't know the rest
+                    return null;
+                }
+                Anchor anchor = new Anchor(this.sourceEnd, this.tokens.start(position));
+                tokenSource.anchorSpansAt(anchor);
+                reparsedStarts.add(position);
+                reparsedAnchors.add(anchor);
+                reparsed.add(parser.parseStatement());
+            }
+        } catch (ParseException _) {
+            return null;
+        }
+
+        List<StatementTree> replaced = this.statements.subList(damaged, reused);
+        replaced.clear();
+        replaced.addAll(reparsed);
+        // the reused statements behind the edit keep their positions relative to the end
+        int added = reparsed.size();
+        int newCount = count - (reused - damaged) + added;
+        if (newCount > this.statementStarts.length) {
+            this.statementStarts = Arrays.copyOf(this.statementStarts, Math.max(newCount, count * 2));
+            this.anchors = Arrays.copyOf(this.anchors, this.statementStarts.length);
+        }
+        System.arraycopy(this.statementStarts, reused, this.statementStarts, damaged + added, count - reused);
+        System.arraycopy(this.anchors, reused, this.anchors, damaged + added, count - reused);
+        for (int i = 0; i < added; i++) {
+            this.statementStarts[damaged + i] = reparsedStarts.get(i);
+            this.anchors[damaged + i] = reparsedAnchors.get(i);
+        }
+        if (newCount < count) {
+            Arrays.fill(this.anchors, newCount, count, null);
+        }
+        this.split = damaged + added;
+        this.tokenCount = this.tokens.size();
+        this.braceClose += tokenDelta;
+
+        FunctionTree function = previous.topLevelTrees().getFirst();
+        Span bodySpan = new Span.SimpleSpan(
+            this.lines, this.tokens.start(braceOpen), this.tokens.end(this.braceClose)
+        );
+        BlockTree body = new BlockTree(this.statements, bodySpan);
+        return new ProgramTree(List.of(new FunctionTree(function.returnType(), function.name(), body)));
+    }
+
+    private int length() {
+        return this.sourceEnd.length();
+    }
+
+    private int statementStart(int index) {
+        int start = this.statementStarts[index];
+        return index < this.split ? start : start + this.tokenCount;
+    }
+
+    private int lastStatementAtOrBefore(int position) {
+        int low = 0;
+        int high = this.statements.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (statementStart(middle) <= position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low - 1;
+    }
+
+    private int firstStatementAtOrAfter(int offset) {
+        int low = 0;
+        int high = this.statements.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.anchors[middle].offset() < offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /// Makes the statements from `index` on relative to the end, and those in front of it absolute.
+    private void moveSplit(int index) {
+        while (this.split > index) {
+            this.split--;
+            this.statementStarts[this.split] -= this.tokenCount;
+            this.anchors[this.split].setRelativeToEnd(true);
+        }
+        while (this.split < index) {
+            this.statementStarts[this.split] += this.tokenCount;
+            this.anchors[this.split].setRelativeToEnd(false);
+            this.split++;
+        }
+    }
+
+    private void moveGap(int offset) {
+        if (offset < this.gapStart) {
+            int count = this.gapStart - offset;
+            System.arraycopy(this.source, offset, this.source, this.gapEnd - count, count);
+            this.gapStart = offset;
+            this.gapEnd -= count;
+        } else if (offset > this.gapStart) {
+            int count = offset - this.gapStart;
+            System.arraycopy(this.source, this.gapEnd, this.source, this.gapStart, count);
+            this.gapStart = offset;
+            this.gapEnd += count;
+        }
+    }
+
+    private void ensureGap(int count) {
+        if (this.gapEnd - this.gapStart < count) {
+            int tail = this.source.length - this.gapEnd;
+            int capacity = Math.max(this.gapStart + count + tail, this.source.length * 2);
+            byte[] grown = Arrays.copyOf(this.source, capacity);
+            System.arraycopy(this.source, this.gapEnd, grown, capacity - tail, tail);
+            this.source = grown;
+            this.gapEnd = capacity - tail;
+        }
+    }
+
+    private MemorySegment contiguousSource() {
+        moveGap(length());
+        return MemorySegment.ofArray(this.source).asSlice(0, length());
+    }
+
+    /// Creating a token may read its chars, so the gap of the source is moved behind the token first.
+    private final class GapTokenSource extends TokenSource {
+        GapTokenSource(int from) {
+            super(
+                IncrementalParser.this.tokens,
+                Lexer.forEdit(MemorySegment.ofArray(IncrementalParser.this.source), IncrementalParser.this.symbols,
+                    IncrementalParser.this.lines),
+                from
+            );
+        }
+
+        @Override
+        public Token peek(int offset) {
+            int index = position() + offset;
+            if (index < IncrementalParser.this.tokens.size()) {
+                int end = IncrementalParser.this.tokens.end(index);
+                if (end > IncrementalParser.this.gapStart) {
+                    moveGap(end);
+                }
+            }
+            return super.peek(offset);
+        }
+    }
+
+    private static final class IntList {
+        private int[] values = new int[16];
+        private int size;
+
+        void add(int value) {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.values[this.size++] = value;
+        }
+
+        int get(int index) {
+            return this.values[index];
+        }
+
+        int removeLast() {
+            return this.values[--this.size];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(this.values, this.size);
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package edu.kit.kastel.vads.compiler.parser;
+
+import edu.kit.kastel.vads.compiler.LineMap;
+import edu.kit.kastel.vads.compiler.Span;
+import edu.kit.kastel.vads.compiler.lexer.Operator;
+import edu.kit.kastel.vads.compiler.lexer.Operator.OperatorType;
+import edu.kit.kastel.vads.compiler.parser.ast.AssignmentTree;
+import edu.kit.kastel.vads.compiler.parser.ast.BinaryOperationTree;
+import edu.kit.kastel.vads.compiler.parser.ast.BlockTree;
+import edu.kit.kastel.vads.compiler.parser.ast.DeclarationTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ExpressionTree;
+import edu.kit.kastel.vads.compiler.parser.ast.FunctionTree;
+import edu.kit.kastel.vads.compiler.parser.ast.IdentExpressionTree;
+import edu.kit.kastel.vads.compiler.parser.ast.LValueIdentTree;
+import edu.kit.kastel.vads.compiler.parser.ast.LiteralTree;
+import edu.kit.kastel.vads.compiler.parser.ast.NameTree;
+import edu.kit.kastel.vads.compiler.parser.ast.NegateTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ProgramTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ReturnTree;
+import edu.kit.kastel.vads.compiler.parser.ast.StatementTree;
+import edu.kit.kastel.vads.compiler.parser.ast.TypeTree;
+import edu.kit.kastel.vads.compiler.parser.symbol.Name;
+import edu.kit.kastel.vads.compiler.parser.type.BasicType;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/// Stores parsed trees in a directory, so unchanged sources don't need to be lexed and parsed again.
+///
+/// Entries are named after the SHA-256 hash of the source. An entry starts with a magic number
+/// and the [#VERSION] of the format, entries of other versions are ignored and overwritten.
+/// It ends with a CRC-32 of the tree, so corrupted entries are ignored as well.
+/// The tree is stored in preorder, except for expressions, which are stored in postorder and
+/// rebuilt with a stack, so deeply nested expressions don't need deep recursion.
+/// Spans are stored as the distance of their start to the start of the span before and their length,
+/// identifiers with the symbol they were interned as. All ints are stored as variable length
+/// quantities to keep entries small.
+/// Only names of identifiers can be stored, as the parser doesn't create other names.
+public final class ParseCache {
+    private static final int MAGIC = 0x4C315054;
+    // increment on every change of the format or of the trees created by the parser
+    private static final int VERSION = 2;
+    private static final OperatorType[] OPERATOR_TYPES = OperatorType.values();
+
+    private static final byte DECLARATION = 0;
+    private static final byte ASSIGNMENT = 1;
+    private static final byte RETURN = 2;
+    private static final byte BLOCK = 3;
+    private static final byte IDENTIFIER = 4;
+    private static final byte LITERAL = 5;
+    private static final byte NEGATE = 6;
+    private static final byte BINARY_OPERATION = 7;
+    private static final byte EXPRESSION_END = 8;
+
+    private final Path directory;
+
+    public ParseCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /// @param source the mapped content, spans of loaded trees refer to it
+    public record Key(MemorySegment source, String hash) {
+    }
+
+    public Key key(Path input) throws IOException {
+        MemorySegment source;
+        try (FileChannel channel = FileChannel.open(input, StandardOpenOption.READ)) {
+            source = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+        }
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is required on every platform", e);
+        }
+        digest.update(source.asByteBuffer());
+        return new Key(source, HexFormat.of().formatHex(digest.digest()));
+    }
+
+    public Optional<ProgramTree> load(Key key) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(entry(key));
+        } catch (NoSuchFileException _) {
+            return Optional.empty();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (bytes.length < 12 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return Optional.empty();
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes, 8, bytes.length - 12);
+        if ((int) checksum.getValue() != buffer.getInt(bytes.length - 4)) {
+            return Optional.empty();
+        }
+        buffer.limit(bytes.length - 4);
+        try {
+            ProgramTree tree = new Reader(buffer, new LineMap(key.source())).readProgram();
+            return buffer.hasRemaining() ? Optional.empty() : Optional.of(tree);
+        } catch (BufferUnderflowException | IllegalArgumentException _) {
+            // truncated or corrupted, e.g., by a crash while writing with an older version
+            return Optional.empty();
+        }
+    }
+
+    /// The entry is written to a temporary file first and then moved, so concurrent compilations never read a partial entry.
+    public void store(Key key, ProgramTree tree) throws IOException {
+        Files.createDirectories(this.directory);
+        Path temporary = Files.createTempFile(this.directory, key.hash(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                CRC32 checksum = new CRC32();
+                DataOutputStream checked = new DataOutputStream(new CheckedOutputStream(out, checksum));
+                new Writer(checked).writeProgram(tree);
+                checked.flush();
+                out.writeInt((int) checksum.getValue());
+            }
+            Files.move(temporary, entry(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private Path entry(Key key) {
+        return this.directory.resolve(key.hash() + ".tree");
+    }
+
+    private static final class Writer {
+        private final DataOutputStream out;
+        private final BitSet writtenSymbols = new BitSet();
+        private int previousStart;
+
+        Writer(DataOutputStream out) {
+            this.out = out;
+        }
+
+        void writeProgram(ProgramTree program) throws IOException {
+            writeUnsigned(program.topLevelTrees().size());
+            for (FunctionTree function : program.topLevelTrees()) {
+                writeSpan(function.returnType().span());
+                writeName(function.name());
+                writeStatement(function.body());
+            }
+        }
+
+        private void writeStatement(StatementTree statement) throws IOException {
+            switch (statement) {
+                case DeclarationTree(TypeTree type, NameTree name, ExpressionTree initializer) -> {
+                    this.out.writeByte(DECLARATION);
+                    writeSpan(type.span());
+                    writeName(name);
+                    this.out.writeBoolean(initializer != null);
+                    if (initializer != null) {
+                        writeExpression(initializer);
+                    }
+                }
+                case AssignmentTree(LValueIdentTree(NameTree name), Operator operator, ExpressionTree expression) -> {
+                    this.out.writeByte(ASSIGNMENT);
+                    writeName(name);
+                    this.out.writeByte(operator.type().ordinal());
+                    writeSpan(operator.span());
+                    writeExpression(expression);
+                }
+                case ReturnTree(ExpressionTree expression, Span returnPos) -> {
+                    this.out.writeByte(RETURN);
+                    writeSpan(returnPos);
+                    writeExpression(expression);
+                }
+                case BlockTree(List<StatementTree> statements, Span span) -> {
+                    this.out.writeByte(BLOCK);
+                    writeSpan(span);
+                    writeUnsigned(statements.size());
+                    for (StatementTree inner : statements) {
+                        writeStatement(inner);
+                    }
+                }
+            }
+        }
+
+        private void writeExpression(ExpressionTree expression) throws IOException {
+            // popping from a stack where the rhs is pushed last yields the reversed postorder
+            List<ExpressionTree> reversed = new ArrayList<>();
+            List<ExpressionTree> stack = new ArrayList<>();
+            stack.add(expression);
+            while (!stack.isEmpty()) {
+                ExpressionTree next = stack.removeLast();
+                reversed.add(next);
+                switch (next) {
+                    case BinaryOperationTree(ExpressionTree lhs, ExpressionTree rhs, OperatorType _) -> {
+                        stack.add(lhs);
+                        stack.add(rhs);
+                    }
+                    case NegateTree(ExpressionTree operand, Span _) -> stack.add(operand);
+                    case IdentExpressionTree _, LiteralTree _ -> {
+                    }
+                }
+            }
+            for (int i = reversed.size() - 1; i >= 0; i--) {
+                switch (reversed.get(i)) {
+                    case BinaryOperationTree(ExpressionTree _, ExpressionTree _, OperatorType type) -> {
+                        this.out.writeByte(BINARY_OPERATION);
+                        this.out.writeByte(type.ordinal());
+                    }
+                    case NegateTree(ExpressionTree _, Span minusPos) -> {
+                        this.out.writeByte(NEGATE);
+                        writeSpan(minusPos);
+                    }
+                    case IdentExpressionTree(NameTree name) -> {
+                        this.out.writeByte(IDENTIFIER);
+                        writeName(name);
+                    }
+                    case LiteralTree(String value, int base, int intValue, boolean outOfRange, Span span) -> {
+                        this.out.writeByte(LITERAL);
+                        writeString(value);
+                        this.out.writeByte(base);
+                        writeUnsigned(intValue);
+                        this.out.writeBoolean(outOfRange);
+                        writeSpan(span);
+                    }
+                }
+            }
+            this.out.writeByte(EXPRESSION_END);
+        }
+
+        private void writeName(NameTree name) throws IOException {
+            int symbol = name.name().symbol();
+            writeUnsigned(symbol);
+            if (!this.writtenSymbols.get(symbol)) {
+                this.writtenSymbols.set(symbol);
+                writeString(name.name().asString());
+            }
+            writeSpan(name.span());
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+            writeUnsigned(bytes.length);
+            this.out.write(bytes);
+        }
+
+        private void writeSpan(Span span) throws IOException {
+            int distance = span.startOffset() - this.previousStart;
+            // zigzag encoded, as the span before can also start behind this one
+            writeUnsigned((distance << 1) ^ (distance >> 31));
+            writeUnsigned(span.endOffset() - span.startOffset());
+            this.previousStart = span.startOffset();
+        }
+
+        private void writeUnsigned(int value) throws IOException {
+            while ((value & ~0x7F) != 0) {
+                this.out.writeByte((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            this.out.writeByte(value);
+        }
+    }
+
+    private static final class Reader {
+        private final ByteBuffer buffer;
+        private final LineMap lines;
+        // the names read so far, indexed by their symbol
+        private Name[] names = new Name[64];
+        private int previousStart;
+
+        Reader(ByteBuffer buffer, LineMap lines) {
+            this.buffer = buffer;
+            this.lines = lines;
+        }
+
+        ProgramTree readProgram() {
+            int count = readCount();
+            List<FunctionTree> functions = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                TypeTree returnType = new TypeTree(BasicType.INT, readSpan());
+                NameTree name = readName();
+                if (!(readStatement() instanceof BlockTree body)) {
+                    throw new IllegalArgumentException("function body is not a block");
+                }
+                functions.add(new FunctionTree(returnType, name, body));
+            }
+            if (functions.isEmpty()) {
+                throw new IllegalArgumentException("program without functions");
+            }
+            return new ProgramTree(functions);
+        }
+
+        private StatementTree readStatement() {
+            byte tag = this.buffer.get();
+            return switch (tag) {
+                case DECLARATION -> {
+                    TypeTree type = new TypeTree(BasicType.INT, readSpan());
+                    NameTree name = readName();
+                    ExpressionTree initializer = this.buffer.get() != 0 ? readExpression() : null;
+                    yield new DeclarationTree(type, name, initializer);
+                }
+                case ASSIGNMENT -> {
+                    LValueIdentTree lValue = new LValueIdentTree(readName());
+                    Operator operator = new Operator(readOperatorType(), readSpan());
+                    yield new AssignmentTree(lValue, operator, readExpression());
+                }
+                case RETURN -> {
+                    Span returnPos = readSpan();
+                    yield new ReturnTree(readExpression(), returnPos);
+                }
+                case BLOCK -> {
+                    Span span = readSpan();
+                    int count = readCount();
+                    List<StatementTree> statements = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        statements.add(readStatement());
+                    }
+                    yield new BlockTree(statements, span);
+                }
+                default -> throw new IllegalArgumentException("unexpected statement tag " + tag);
+            };
+        }
+
+        private ExpressionTree readExpression() {
+            List<ExpressionTree> stack = new ArrayList<>();
+            while (true) {
+                byte tag = this.buffer.get();
+                switch (tag) {
+                    case IDENTIFIER -> stack.add(new IdentExpressionTree(readName()));
+                    case LITERAL -> {
+                        String value = readString();
+                        int base = this.buffer.get();
+                        int intValue = readUnsigned();
+                        boolean outOfRange = this.buffer.get() != 0;
+                        stack.add(new LiteralTree(value, base, intValue, outOfRange, readSpan()));
+                    }
+                    case NEGATE -> stack.add(new NegateTree(pop(stack), readSpan()));
+                    case BINARY_OPERATION -> {
+                        ExpressionTree rhs = pop(stack);
+                        ExpressionTree lhs = pop(stack);
+                        stack.add(new BinaryOperationTree(lhs, rhs, readOperatorType()));
+                    }
+                    case EXPRESSION_END -> {
+                        if (stack.size() != 1) {
+                            throw new IllegalArgumentException("expression of " + stack.size() + " trees");
+                        }
+                        return stack.getFirst();
+                    }
+                    default -> throw new IllegalArgumentException("unexpected expression tag " + tag);
+                }
+            }
+        }
+
+        private static ExpressionTree pop(List<ExpressionTree> stack) {
+            if (stack.isEmpty()) {
+                throw new IllegalArgumentException("missing operand");
+            }
+            return stack.removeLast();
+        }
+
+        private NameTree readName() {
+            int symbol = readUnsigned();
+            if (symbol >= this.names.length) {
+                // each symbol is written with its identifier once, so a valid entry can't have more symbols than bytes
+                if (symbol >= this.buffer.limit()) {
+                    throw new IllegalArgumentException("unexpected symbol " + symbol);
+                }
+                this.names = Arrays.copyOf(this.names, Math.max(symbol + 1, this.names.length * 2));
+            }
+            Name name = this.names[symbol];
+            if (name == null) {
+                name = Name.forIdentifier(readString(), symbol);
+                this.names[symbol] = name;
+            }
+            return new NameTree(name, readSpan());
+        }
+
+        private OperatorType readOperatorType() {
+            int ordinal = this.buffer.get();
+            if (ordinal < 0 || ordinal >= OPERATOR_TYPES.length) {
+                throw new IllegalArgumentException("unexpected operator " + ordinal);
+            }
+            return OPERATOR_TYPES[ordinal];
+        }
+
+        private String readString() {
+            byte[] bytes = new byte[readCount()];
+            this.buffer.get(bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        private int readCount() {
+            int count = readUnsigned();
+            if (count < 0 || count > this.buffer.remaining()) {
+                throw new IllegalArgumentException("invalid count " + count);
+            }
+            return count;
+        }
+
+        private Span readSpan() {
+            int distance = readUnsigned();
+            int start = this.previousStart + ((distance >>> 1) ^ -(distance & 1));
+            this.previousStart = start;
+            return new Span.SimpleSpan(this.lines, start, start + readUnsigned());
+        }
+
+        private int readUnsigned() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = this.buffer.get();
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("int too long");
+        }
+    }
+}
@@ -9,7 +9,7 @@ import edu.kit.kastel.vads.compiler.lexer.Operator.OperatorType;
 import edu.kit.kastel.vads.compiler.lexer.Separator;
 import edu.kit.kastel.vads.compiler.lexer.Separator.SeparatorType;
 import edu.kit.kastel.vads.compiler.Span;
-import edu.kit.kastel.vads.compiler.lexer.Token;
+import edu.kit.kastel.vads.compiler.lexer.TokenKind;
 import edu.kit.kastel.vads.compiler.parser.ast.AssignmentTree;
 import edu.kit.kastel.vads.compiler.parser.ast.BinaryOperationTree;
 import edu.kit.kastel.vads.compiler.parser.ast.BlockTree;
@@ -31,8 +31,20 @@ import edu.kit.kastel.vads.compiler.parser.type.BasicType;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntConsumer;
 
 public class Parser {
+    // binding power of binary operators by the ordinal of their type, 0 if the operator isn't binary
+    private static final int[] BINDING_POWER = new int[OperatorType.values().length];
+
+    static {
+        BINDING_POWER[OperatorType.PLUS.ordinal()] = 1;
+        BINDING_POWER[OperatorType.MINUS.ordinal()] = 1;
+        BINDING_POWER[OperatorType.MUL.ordinal()] = 2;
+        BINDING_POWER[OperatorType.DIV.ordinal()] = 2;
+        BINDING_POWER[OperatorType.MOD.ordinal()] = 2;
+    }
+
     private final TokenSource tokenSource;
 
     public Parser(TokenSource tokenSource) {
@@ -40,19 +52,25 @@ public class Parser {
     }
 
     public ProgramTree parseProgram() {
-        ProgramTree programTree = new ProgramTree(List.of(parseFunction()));
+        return parseProgram(_ -> {});
+    }
+
+    /// Like [#parseProgram()], but reports the [TokenSource#position()] of each statement
+    /// in the function body and finally the one of the closing brace to `blockPositions`.
+    ProgramTree parseProgram(IntConsumer blockPositions) {
+        ProgramTree programTree = new ProgramTree(List.of(parseFunction(blockPositions)));
         if (this.tokenSource.hasMore()) {
             throw new ParseException("expected end of input but got " + this.tokenSource.peek());
         }
         return programTree;
     }
 
-    private FunctionTree parseFunction() {
+    private FunctionTree parseFunction(IntConsumer blockPositions) {
         Keyword returnType = this.tokenSource.expectKeyword(KeywordType.INT);
         Identifier identifier = this.tokenSource.expectIdentifier();
-        this.tokenSource.expectSeparator(SeparatorType.PAREN_OPEN);
-        this.tokenSource.expectSeparator(SeparatorType.PAREN_CLOSE);
-        BlockTree body = parseBlock();
+        this.tokenSource.skipSeparator(SeparatorType.PAREN_OPEN);
+        this.tokenSource.skipSeparator(SeparatorType.PAREN_CLOSE);
+        BlockTree body = parseBlock(blockPositions);
         return new FunctionTree(
             new TypeTree(BasicType.INT, returnType.span()),
             name(identifier),
@@ -60,26 +78,25 @@ public class Parser {
         );
     }
 
-    private BlockTree parseBlock() {
+    private BlockTree parseBlock(IntConsumer blockPositions) {
         Separator bodyOpen = this.tokenSource.expectSeparator(SeparatorType.BRACE_OPEN);
         List<StatementTree> statements = new ArrayList<>();
-        while (!(this.tokenSource.peek() instanceof Separator sep && sep.type() == SeparatorType.BRACE_CLOSE)) {
+        while (this.tokenSource.peekKind() != TokenKind.BRACE_CLOSE) {
+            blockPositions.accept(this.tokenSource.position());
             statements.add(parseStatement());
         }
+        blockPositions.accept(this.tokenSource.position());
         Separator bodyClose = this.tokenSource.expectSeparator(SeparatorType.BRACE_CLOSE);
         return new BlockTree(statements, bodyOpen.span().merge(bodyClose.span()));
     }
 
-    private StatementTree parseStatement() {
-        StatementTree statement;
-        if (this.tokenSource.peek().isKeyword(KeywordType.INT)) {
-            statement = parseDeclaration();
-        } else if (this.tokenSource.peek().isKeyword(KeywordType.RETURN)) {
-            statement = parseReturn();
-        } else {
-            statement = parseSimple();
-        }
-        this.tokenSource.expectSeparator(SeparatorType.SEMICOLON);
+    StatementTree parseStatement() {
+        StatementTree statement = switch (this.tokenSource.peekKind()) {
+            case INT -> parseDeclaration();
+            case RETURN -> parseReturn();
+            default -> parseSimple();
+        };
+        this.tokenSource.skipSeparator(SeparatorType.SEMICOLON);
         return statement;
     }
 
@@ -87,8 +104,8 @@ public class Parser {
         Keyword type = this.tokenSource.expectKeyword(KeywordType.INT);
         Identifier ident = this.tokenSource.expectIdentifier();
         ExpressionTree expr = null;
-        if (this.tokenSource.peek().isOperator(OperatorType.ASSIGN)) {
-            this.tokenSource.expectOperator(OperatorType.ASSIGN);
+        if (this.tokenSource.peekKind() == TokenKind.ASSIGN) {
+            this.tokenSource.skip();
             expr = parseExpression();
         }
         return new DeclarationTree(new TypeTree(BasicType.INT, type.span()), name(ident), expr);
@@ -102,83 +119,120 @@ public class Parser {
     }
 
     private Operator parseAssignmentOperator() {
-        if (this.tokenSource.peek() instanceof Operator op) {
-            return switch (op.type()) {
-                case ASSIGN, ASSIGN_DIV, ASSIGN_MINUS, ASSIGN_MOD, ASSIGN_MUL, ASSIGN_PLUS -> {
-                    this.tokenSource.consume();
-                    yield op;
+        TokenKind kind = this.tokenSource.peekKind();
+        return switch (kind) {
+            case ASSIGN, ASSIGN_DIV, ASSIGN_MINUS, ASSIGN_MOD, ASSIGN_MUL, ASSIGN_PLUS ->
+                (Operator) this.tokenSource.consume();
+            default -> {
+                if (kind.operatorType() != null) {
+                    throw new ParseException("expected assignment but got " + kind.operatorType());
                 }
-                default -> throw new ParseException("expected assignment but got " + op.type());
-            };
-        }
-        throw new ParseException("expected assignment but got " + this.tokenSource.peek());
+                throw new ParseException("expected assignment but got " + this.tokenSource.peek());
+            }
+        };
     }
 
     private LValueTree parseLValue() {
-        if (this.tokenSource.peek().isSeparator(SeparatorType.PAREN_OPEN)) {
-            this.tokenSource.expectSeparator(SeparatorType.PAREN_OPEN);
-            LValueTree inner = parseLValue();
-            this.tokenSource.expectSeparator(SeparatorType.PAREN_CLOSE);
-            return inner;
+        // count the parentheses instead of recursing, so deep nesting can't overflow the stack
+        int parens = 0;
+        while (this.tokenSource.peekKind() == TokenKind.PAREN_OPEN) {
+            this.tokenSource.skip();
+            parens++;
         }
         Identifier identifier = this.tokenSource.expectIdentifier();
+        for (int i = 0; i < parens; i++) {
+            this.tokenSource.skipSeparator(SeparatorType.PAREN_CLOSE);
+        }
         return new LValueIdentTree(name(identifier));
     }
 
     private StatementTree parseReturn() {
         Keyword ret = this.tokenSource.expectKeyword(KeywordType.RETURN);
         ExpressionTree expression = parseExpression();
-        return new ReturnTree(expression, ret.span().start());
+        return new ReturnTree(expression, ret.span());
     }
 
+    /// Precedence climbing with explicit stacks instead of recursion, so the nesting depth is only limited by memory.
     private ExpressionTree parseExpression() {
-        ExpressionTree lhs = parseTerm();
+        List<ExpressionTree> operands = new ArrayList<>();
+        List<PendingOperator> operators = new ArrayList<>();
+        int openParens = 0;
         while (true) {
-            if (this.tokenSource.peek() instanceof Operator(var type, _)
-                && (type == OperatorType.PLUS || type == OperatorType.MINUS)) {
-                this.tokenSource.consume();
-                lhs = new BinaryOperationTree(lhs, parseTerm(), type);
-            } else {
-                return lhs;
+            ExpressionTree operand = switch (this.tokenSource.peekKind()) {
+                case PAREN_OPEN -> {
+                    this.tokenSource.skip();
+                    operators.add(PendingOperator.OpenParen.INSTANCE);
+                    openParens++;
+                    yield null;
+                }
+                case MINUS -> {
+                    Span span = this.tokenSource.consume().span();
+                    operators.add(new PendingOperator.Negate(span));
+                    yield null;
+                }
+                case IDENTIFIER -> new IdentExpressionTree(name(this.tokenSource.expectIdentifier()));
+                case DECIMAL_LITERAL, HEX_LITERAL -> {
+                    NumberLiteral literal = (NumberLiteral) this.tokenSource.consume();
+                    yield new LiteralTree(
+                        literal.value(), literal.base(), literal.intValue(), literal.outOfRange(), literal.span()
+                    );
+                }
+                default -> throw new ParseException("invalid factor " + this.tokenSource.peek());
+            };
+            if (operand == null) {
+                continue;
+            }
+            // the factor is complete, close parentheses until the next binary operator
+            while (true) {
+                while (!operators.isEmpty() && operators.getLast() instanceof PendingOperator.Negate(Span minusPos)) {
+                    operators.removeLast();
+                    operand = new NegateTree(operand, minusPos);
+                }
+                OperatorType type = this.tokenSource.peekKind().operatorType();
+                int bindingPower = type == null ? 0 : BINDING_POWER[type.ordinal()];
+                if (bindingPower > 0) {
+                    operands.add(reduce(operands, operators, operand, bindingPower));
+                    operators.add(new PendingOperator.Binary(type, bindingPower));
+                    this.tokenSource.skip();
+                    break;
+                }
+                operand = reduce(operands, operators, operand, 1);
+                if (openParens == 0) {
+                    return operand;
+                }
+                this.tokenSource.skipSeparator(SeparatorType.PAREN_CLOSE);
+                operators.removeLast();
+                openParens--;
             }
         }
     }
 
-    private ExpressionTree parseTerm() {
-        ExpressionTree lhs = parseFactor();
-        while (true) {
-            if (this.tokenSource.peek() instanceof Operator(var type, _)
-                && (type == OperatorType.MUL || type == OperatorType.DIV || type == OperatorType.MOD)) {
-                this.tokenSource.consume();
-                lhs = new BinaryOperationTree(lhs, parseFactor(), type);
-            } else {
-                return lhs;
-            }
+    /// Applies the binary operators on top of the stack that bind at least as strong as `minBindingPower`.
+    private static ExpressionTree reduce(
+        List<ExpressionTree> operands,
+        List<PendingOperator> operators,
+        ExpressionTree rhs,
+        int minBindingPower
+    ) {
+        while (!operators.isEmpty()
+            && operators.getLast() instanceof PendingOperator.Binary(OperatorType type, int bindingPower)
+            && bindingPower >= minBindingPower) {
+            operators.removeLast();
+            rhs = new BinaryOperationTree(operands.removeLast(), rhs, type);
         }
+        return rhs;
     }
 
-    private ExpressionTree parseFactor() {
-        return switch (this.tokenSource.peek()) {
-            case Separator(var type, _) when type == SeparatorType.PAREN_OPEN -> {
-                this.tokenSource.consume();
-                ExpressionTree expression = parseExpression();
-                this.tokenSource.expectSeparator(SeparatorType.PAREN_CLOSE);
-                yield expression;
-            }
-            case Operator(var type, _) when type == OperatorType.MINUS -> {
-                Span span = this.tokenSource.consume().span();
-                yield new NegateTree(parseFactor(), span);
-            }
-            case Identifier ident -> {
-                this.tokenSource.consume();
-                yield new IdentExpressionTree(name(ident));
-            }
-            case NumberLiteral(String value, int base, Span span) -> {
-                this.tokenSource.consume();
-                yield new LiteralTree(value, base, span);
-            }
-            case Token t -> throw new ParseException("invalid factor " + t);
-        };
+    private sealed interface PendingOperator {
+        enum OpenParen implements PendingOperator {
+            INSTANCE
+        }
+
+        record Negate(Span minusPos) implements PendingOperator {
+        }
+
+        record Binary(OperatorType type, int bindingPower) implements PendingOperator {
+        }
     }
 
     private static NameTree name(Identifier ident) {
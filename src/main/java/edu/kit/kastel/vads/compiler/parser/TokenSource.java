@@ -1,5 +1,6 @@
 package edu.kit.kastel.vads.compiler.parser;
 
+import edu.kit.kastel.vads.compiler.Anchor;
 import edu.kit.kastel.vads.compiler.lexer.Identifier;
 import edu.kit.kastel.vads.compiler.lexer.Keyword;
 import edu.kit.kastel.vads.compiler.lexer.KeywordType;
@@ -9,79 +10,148 @@ import edu.kit.kastel.vads.compiler.lexer.Operator.OperatorType;
 import edu.kit.kastel.vads.compiler.lexer.Separator;
 import edu.kit.kastel.vads.compiler.lexer.Separator.SeparatorType;
 import edu.kit.kastel.vads.compiler.lexer.Token;
+import edu.kit.kastel.vads.compiler.lexer.TokenBuffer;
+import edu.kit.kastel.vads.compiler.lexer.TokenKind;
 
-import java.util.List;
-import java.util.Optional;
-import java.util.stream.Stream;
-
+/// Pulls tokens from the lexer only when the parser asks for them, only the lookahead is buffered.
 public class TokenSource {
-    private final List<Token> tokens;
-    private int idx;
+    // must be a power of two
+    private static final int LOOKAHEAD = 2;
+    private final Lexer lexer;
+    // if present, tokens are read from here instead of being lexed
+    private final TokenBuffer buffer;
+    private final int[] kinds = new int[LOOKAHEAD];
+    private final int[] starts = new int[LOOKAHEAD];
+    private final int[] ends = new int[LOOKAHEAD];
+    private final int[] values = new int[LOOKAHEAD];
+    private int head;
+    private int size;
+    private int position;
+    private Anchor anchor;
 
     public TokenSource(Lexer lexer) {
-        this.tokens = Stream.generate(lexer::nextToken)
-            .takeWhile(Optional::isPresent)
-            .map(Optional::orElseThrow)
-            .toList();
+        this.lexer = lexer;
+        this.buffer = null;
+    }
+
+    /// The `lexer` is only used to create token objects, it must belong to the source of the buffer.
+    public TokenSource(TokenBuffer buffer, Lexer lexer, int from) {
+        this.lexer = lexer;
+        this.buffer = buffer;
+        this.position = from;
+    }
+
+    public void anchorSpansAt(Anchor anchor) {
+        this.anchor = anchor;
+    }
+
+    public int position() {
+        return this.position;
+    }
+
+    public TokenKind peekKind() {
+        return peekKind(0);
     }
 
-    TokenSource(List<Token> tokens) {
-        this.tokens = List.copyOf(tokens);
+    public TokenKind peekKind(int offset) {
+        return TokenKind.ofOrdinal(this.kinds[index(offset)]);
     }
 
     public Token peek() {
-        expectHasMore();
-        return this.tokens.get(this.idx);
+        return peek(0);
+    }
+
+    public Token peek(int offset) {
+        int index = index(offset);
+        return this.lexer.token(
+            TokenKind.ofOrdinal(this.kinds[index]), this.starts[index], this.ends[index], this.values[index], this.anchor
+        );
     }
 
     public Keyword expectKeyword(KeywordType type) {
-        Token token = peek();
-        if (!(token instanceof Keyword kw) || kw.type() != type) {
-            throw new ParseException("expected keyword '" + type + "' but got " + token);
+        if (peekKind() != TokenKind.of(type)) {
+            throw new ParseException("expected keyword '" + type + "' but got " + peek());
         }
-        this.idx++;
-        return kw;
+        return (Keyword) consume();
     }
 
     public Separator expectSeparator(SeparatorType type) {
-        Token token = peek();
-        if (!(token instanceof Separator sep) || sep.type() != type) {
-            throw new ParseException("expected separator '" + type + "' but got " + token);
+        if (peekKind() != TokenKind.of(type)) {
+            throw new ParseException("expected separator '" + type + "' but got " + peek());
+        }
+        return (Separator) consume();
+    }
+
+    public void skipSeparator(SeparatorType type) {
+        if (peekKind() != TokenKind.of(type)) {
+            throw new ParseException("expected separator '" + type + "' but got " + peek());
         }
-        this.idx++;
-        return sep;
+        skip();
     }
 
     public Operator expectOperator(OperatorType type) {
-        Token token = peek();
-        if (!(token instanceof Operator op) || op.type() != type) {
-            throw new ParseException("expected operator '" + type + "' but got " + token);
+        if (peekKind() != TokenKind.of(type)) {
+            throw new ParseException("expected operator '" + type + "' but got " + peek());
         }
-        this.idx++;
-        return op;
+        return (Operator) consume();
     }
     public Identifier expectIdentifier() {
-        Token token = peek();
-        if (!(token instanceof Identifier ident)) {
-            throw new ParseException("expected identifier but got " + token);
+        if (peekKind() != TokenKind.IDENTIFIER) {
+            throw new ParseException("expected identifier but got " + peek());
         }
-        this.idx++;
-        return ident;
+        return (Identifier) consume();
     }
 
     public Token consume() {
         Token token = peek();
-        this.idx++;
+        skip();
         return token;
     }
 
+    public void skip() {
+        // fails if there is no token to skip
+        index(0);
+        this.head = (this.head + 1) & (LOOKAHEAD - 1);
+        this.size--;
+        this.position++;
+    }
+
     public boolean hasMore() {
-        return this.idx < this.tokens.size();
+        return fill(1);
     }
 
-    private void expectHasMore() {
-        if (this.idx >= this.tokens.size()) {
+    private int index(int offset) {
+        assert offset < LOOKAHEAD : "lookahead of " + offset + " exceeds buffer";
+        if (!fill(offset + 1)) {
             throw new ParseException("reached end of file");
         }
+        return (this.head + offset) & (LOOKAHEAD - 1);
+    }
+
+    /// @return false if the input ends before that
+    private boolean fill(int count) {
+        while (this.size < count) {
+            int index = (this.head + this.size) & (LOOKAHEAD - 1);
+            if (this.buffer != null) {
+                int next = this.position + this.size;
+                if (next == this.buffer.size()) {
+                    return false;
+                }
+                this.kinds[index] = this.buffer.kind(next).ordinal();
+                this.starts[index] = this.buffer.start(next);
+                this.ends[index] = this.buffer.end(next);
+                this.values[index] = this.buffer.value(next);
+            } else {
+                if (!this.lexer.advance()) {
+                    return false;
+                }
+                this.kinds[index] = this.lexer.kind().ordinal();
+                this.starts[index] = this.lexer.tokenStart();
+                this.ends[index] = this.lexer.tokenEnd();
+                this.values[index] = this.lexer.tokenValue();
+            }
+            this.size++;
+        }
+        return true;
     }
 }
@@ -7,4 +7,10 @@ record KeywordName(KeywordType type) implements Name {
     public String asString() {
         return type().keyword();
     }
+
+    @Override
+    public int symbol() {
+        // keywords are interned first, see SymbolTable
+        return type().ordinal();
+    }
 }
@@ -10,8 +10,16 @@ public sealed interface Name permits IdentName, KeywordName {
     }
 
     static Name forIdentifier(Identifier identifier) {
-        return new IdentName(identifier.value());
+        return new IdentName(identifier.value(), identifier.symbol());
+    }
+
+    /// Recreates the name of an identifier that was interned as `symbol` before, e.g., when reading a stored tree.
+    static Name forIdentifier(String identifier, int symbol) {
+        return new IdentName(identifier, symbol);
     }
 
     String asString();
+
+    /// {@return the dense id of this name in the [edu.kit.kastel.vads.compiler.lexer.SymbolTable] of the compilation}
+    int symbol();
 }
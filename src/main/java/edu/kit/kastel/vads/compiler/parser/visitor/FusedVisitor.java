@@ -0,0 +1,289 @@
+package edu.kit.kastel.vads.compiler.parser.visitor;
+
+import edu.kit.kastel.vads.compiler.parser.ast.AssignmentTree;
+import edu.kit.kastel.vads.compiler.parser.ast.BinaryOperationTree;
+import edu.kit.kastel.vads.compiler.parser.ast.BlockTree;
+import edu.kit.kastel.vads.compiler.parser.ast.DeclarationTree;
+import edu.kit.kastel.vads.compiler.parser.ast.FunctionTree;
+import edu.kit.kastel.vads.compiler.parser.ast.IdentExpressionTree;
+import edu.kit.kastel.vads.compiler.parser.ast.LValueIdentTree;
+import edu.kit.kastel.vads.compiler.parser.ast.LiteralTree;
+import edu.kit.kastel.vads.compiler.parser.ast.NameTree;
+import edu.kit.kastel.vads.compiler.parser.ast.NegateTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ProgramTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ReturnTree;
+import edu.kit.kastel.vads.compiler.parser.ast.Tree;
+import edu.kit.kastel.vads.compiler.parser.ast.TypeTree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/// Runs several [NoOpVisitor]s on each tree, each with its own data.
+/// Wrapped in a [RecursivePostorderVisitor], this runs all of them in a single traversal.
+/// A visitor that throws is skipped for the rest of the traversal.
+public final class FusedVisitor implements NoOpVisitor<Unit> {
+    private static final NoOpVisitor<Object> FAILED = new NoOpVisitor<>() {
+    };
+
+    private final List<NoOpVisitor<?>> added = new ArrayList<>();
+    private final List<RuntimeException> failures = new ArrayList<>();
+    // the visitors overriding the visit method and their data, by tree type
+    private final NoOpVisitor<Object>[][] visitors;
+    private final Object[][] data;
+
+    @SuppressWarnings("unchecked")
+    public FusedVisitor() {
+        this.visitors = (NoOpVisitor<Object>[][]) new NoOpVisitor<?>[TreeType.values().length][0];
+        this.data = new Object[TreeType.values().length][0];
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> FusedVisitor add(NoOpVisitor<T> visitor, T data) {
+        this.added.add(visitor);
+        this.failures.add(null);
+        for (TreeType type : TreeType.values()) {
+            if (overrides(visitor, type)) {
+                int i = type.ordinal();
+                int length = this.visitors[i].length;
+                this.visitors[i] = Arrays.copyOf(this.visitors[i], length + 1);
+                this.data[i] = Arrays.copyOf(this.data[i], length + 1);
+                // safe, as the visitor is only ever passed its own data
+                this.visitors[i][length] = (NoOpVisitor<Object>) visitor;
+                this.data[i][length] = data;
+            }
+        }
+        return this;
+    }
+
+    public void throwFirstFailure() {
+        for (RuntimeException failure : this.failures) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    @Override
+    public Unit visit(AssignmentTree assignmentTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.ASSIGNMENT.ordinal()];
+        Object[] visitorData = this.data[TreeType.ASSIGNMENT.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(assignmentTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(BinaryOperationTree binaryOperationTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.BINARY_OPERATION.ordinal()];
+        Object[] visitorData = this.data[TreeType.BINARY_OPERATION.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(binaryOperationTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(BlockTree blockTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.BLOCK.ordinal()];
+        Object[] visitorData = this.data[TreeType.BLOCK.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(blockTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(DeclarationTree declarationTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.DECLARATION.ordinal()];
+        Object[] visitorData = this.data[TreeType.DECLARATION.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(declarationTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(FunctionTree functionTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.FUNCTION.ordinal()];
+        Object[] visitorData = this.data[TreeType.FUNCTION.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(functionTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(IdentExpressionTree identExpressionTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.IDENT_EXPRESSION.ordinal()];
+        Object[] visitorData = this.data[TreeType.IDENT_EXPRESSION.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(identExpressionTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(LiteralTree literalTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.LITERAL.ordinal()];
+        Object[] visitorData = this.data[TreeType.LITERAL.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(literalTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(LValueIdentTree lValueIdentTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.L_VALUE_IDENT.ordinal()];
+        Object[] visitorData = this.data[TreeType.L_VALUE_IDENT.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(lValueIdentTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(NameTree nameTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.NAME.ordinal()];
+        Object[] visitorData = this.data[TreeType.NAME.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(nameTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(NegateTree negateTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.NEGATE.ordinal()];
+        Object[] visitorData = this.data[TreeType.NEGATE.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(negateTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(ProgramTree programTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.PROGRAM.ordinal()];
+        Object[] visitorData = this.data[TreeType.PROGRAM.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(programTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(ReturnTree returnTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.RETURN.ordinal()];
+        Object[] visitorData = this.data[TreeType.RETURN.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(returnTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    @Override
+    public Unit visit(TypeTree typeTree, Unit data) {
+        NoOpVisitor<Object>[] visitors = this.visitors[TreeType.TYPE.ordinal()];
+        Object[] visitorData = this.data[TreeType.TYPE.ordinal()];
+        for (int i = 0; i < visitors.length; i++) {
+            try {
+                visitors[i].visit(typeTree, visitorData[i]);
+            } catch (RuntimeException e) {
+                fail(visitors[i], e);
+            }
+        }
+        return Unit.INSTANCE;
+    }
+
+    private static boolean overrides(NoOpVisitor<?> visitor, TreeType type) {
+        try {
+            return visitor.getClass().getMethod("visit", type.type, Object.class).getDeclaringClass() != NoOpVisitor.class;
+        } catch (NoSuchMethodException e) {
+            throw new AssertionError("every visitor has a method for " + type.type.getSimpleName(), e);
+        }
+    }
+
+    private void fail(NoOpVisitor<Object> visitor, RuntimeException failure) {
+        this.failures.set(this.added.indexOf(visitor), failure);
+        for (NoOpVisitor<Object>[] visitors : this.visitors) {
+            for (int i = 0; i < visitors.length; i++) {
+                if (visitors[i] == visitor) {
+                    visitors[i] = FAILED;
+                }
+            }
+        }
+    }
+
+    private enum TreeType {
+        ASSIGNMENT(AssignmentTree.class),
+        BINARY_OPERATION(BinaryOperationTree.class),
+        BLOCK(BlockTree.class),
+        DECLARATION(DeclarationTree.class),
+        FUNCTION(FunctionTree.class),
+        IDENT_EXPRESSION(IdentExpressionTree.class),
+        LITERAL(LiteralTree.class),
+        L_VALUE_IDENT(LValueIdentTree.class),
+        NAME(NameTree.class),
+        NEGATE(NegateTree.class),
+        PROGRAM(ProgramTree.class),
+        RETURN(ReturnTree.class),
+        TYPE(TypeTree.class);
+
+        private final Class<? extends Tree> type;
+
+        TreeType(Class<? extends Tree> type) {
+            this.type = type;
+        }
+    }
+}
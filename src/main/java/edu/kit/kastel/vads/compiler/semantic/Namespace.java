@@ -1,25 +1,65 @@
 package edu.kit.kastel.vads.compiler.semantic;
 
 import edu.kit.kastel.vads.compiler.parser.ast.NameTree;
-import edu.kit.kastel.vads.compiler.parser.symbol.Name;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.BinaryOperator;
+import java.util.Arrays;
 
+/// Maps names to values in an array indexed by [edu.kit.kastel.vads.compiler.parser.symbol.Name#symbol()].
+/// Each update records the value it replaces, so exiting a scope restores all values changed since it was entered.
 public class Namespace<T> {
-
-    private final Map<Name, T> content;
+    private Object[] values = new Object[64];
+    // the undo log: the symbol of each update and the value it replaced
+    private int[] undoSymbols = new int[16];
+    private Object[] undoValues = new Object[16];
+    private int undoSize;
+    // the undo log size at each entered scope
+    private int[] scopeStarts = new int[8];
+    private int scopeDepth;
 
     public Namespace() {
-        this.content = new HashMap<>();
     }
 
-    public void put(NameTree name, T value, BinaryOperator<T> merger) {
-        this.content.merge(name.name(), value, merger);
+    public void put(NameTree name, T value) {
+        int symbol = name.name().symbol();
+        if (symbol >= this.values.length) {
+            this.values = Arrays.copyOf(this.values, Math.max(symbol + 1, this.values.length * 2));
+        }
+        if (this.scopeDepth > 0) {
+            logUndo(symbol);
+        }
+        this.values[symbol] = value;
     }
 
+    @SuppressWarnings("unchecked")
     public T get(NameTree name) {
-        return this.content.get(name.name());
+        int symbol = name.name().symbol();
+        // only values of type T are stored
+        return symbol < this.values.length ? (T) this.values[symbol] : null;
+    }
+
+    public void enterScope() {
+        if (this.scopeDepth == this.scopeStarts.length) {
+            this.scopeStarts = Arrays.copyOf(this.scopeStarts, this.scopeDepth * 2);
+        }
+        this.scopeStarts[this.scopeDepth++] = this.undoSize;
+    }
+
+    public void exitScope() {
+        int start = this.scopeStarts[--this.scopeDepth];
+        while (this.undoSize > start) {
+            this.undoSize--;
+            this.values[this.undoSymbols[this.undoSize]] = this.undoValues[this.undoSize];
+            this.undoValues[this.undoSize] = null;
+        }
+    }
+
+    private void logUndo(int symbol) {
+        if (this.undoSize == this.undoSymbols.length) {
+            this.undoSymbols = Arrays.copyOf(this.undoSymbols, this.undoSize * 2);
+            this.undoValues = Arrays.copyOf(this.undoValues, this.undoSize * 2);
+        }
+        this.undoSymbols[this.undoSize] = symbol;
+        this.undoValues[this.undoSize] = this.values[symbol];
+        this.undoSize++;
     }
 }
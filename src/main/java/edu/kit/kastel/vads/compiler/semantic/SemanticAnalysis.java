@@ -1,20 +1,64 @@
 package edu.kit.kastel.vads.compiler.semantic;
 
+import edu.kit.kastel.vads.compiler.parser.ast.FunctionTree;
 import edu.kit.kastel.vads.compiler.parser.ast.ProgramTree;
+import edu.kit.kastel.vads.compiler.parser.visitor.FusedVisitor;
 import edu.kit.kastel.vads.compiler.parser.visitor.RecursivePostorderVisitor;
+import edu.kit.kastel.vads.compiler.parser.visitor.Unit;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/// Each function is analyzed on its own task with its own state.
+/// If several functions fail, the error of the first one in source order is reported.
 public class SemanticAnalysis {
 
     private final ProgramTree program;
+    private final ForkJoinPool pool;
 
     public SemanticAnalysis(ProgramTree program) {
+        this(program, ForkJoinPool.commonPool());
+    }
+
+    public SemanticAnalysis(ProgramTree program, ForkJoinPool pool) {
         this.program = program;
+        this.pool = pool;
     }
 
     public void analyze() {
-        this.program.accept(new RecursivePostorderVisitor<>(new IntegerLiteralRangeAnalysis()), new Namespace<>());
-        this.program.accept(new RecursivePostorderVisitor<>(new VariableStatusAnalysis()), new Namespace<>());
-        this.program.accept(new RecursivePostorderVisitor<>(new ReturnAnalysis()), new ReturnAnalysis.ReturnState());
+        List<FunctionTree> functions = this.program.topLevelTrees();
+        if (functions.size() == 1) {
+            throwIfPresent(analyze(functions.getFirst()));
+        } else {
+            List<ForkJoinTask<RuntimeException>> tasks = functions.stream()
+                .map(function -> this.pool.submit(() -> analyze(function)))
+                .toList();
+            for (ForkJoinTask<RuntimeException> task : tasks) {
+                throwIfPresent(task.join());
+            }
+        }
     }
 
+    /// @return the failure of the first failing check, in the order they are added here, or `null`
+    private static RuntimeException analyze(FunctionTree function) {
+        FusedVisitor checks = new FusedVisitor()
+            .add(new IntegerLiteralRangeAnalysis(), new Namespace<>())
+            .add(new VariableStatusAnalysis(), new Namespace<>())
+            .add(new ReturnAnalysis(), new ReturnAnalysis.ReturnState());
+        function.accept(new RecursivePostorderVisitor<>(checks), Unit.INSTANCE);
+        try {
+            checks.throwFirstFailure();
+            return null;
+        } catch (RuntimeException e) {
+            // returned instead of thrown, as joining a task may replace its exception by a copy
+            return e;
+        }
+    }
+
+    private static void throwIfPresent(RuntimeException failure) {
+        if (failure != null) {
+            throw failure;
+        }
+    }
 }
@@ -61,12 +61,11 @@ class VariableStatusAnalysis implements NoOpVisitor<Namespace<VariableStatusAnal
     }
 
     private static void updateStatus(Namespace<VariableStatus> data, VariableStatus status, NameTree name) {
-        data.put(name, status, (existing, replacement) -> {
-            if (existing.ordinal() >= replacement.ordinal()) {
-                throw new SemanticException("variable is already " + existing + ". Cannot be " + replacement + " here.");
-            }
-            return replacement;
-        });
+        VariableStatus existing = data.get(name);
+        if (existing != null && existing.ordinal() >= status.ordinal()) {
+            throw new SemanticException("variable is already " + existing + ". Cannot be " + status + " here.");
+        }
+        data.put(name, status);
     }
 
     @Override
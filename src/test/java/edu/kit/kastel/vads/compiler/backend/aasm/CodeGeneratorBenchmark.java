@@ -0,0 +1,78 @@
+package edu.kit.kastel.vads.compiler.backend.aasm;
+
+import edu.kit.kastel.vads.compiler.ir.IrGraph;
+import edu.kit.kastel.vads.compiler.ir.SsaTranslation;
+import edu.kit.kastel.vads.compiler.ir.optimize.LocalValueNumbering;
+import edu.kit.kastel.vads.compiler.lexer.Lexer;
+import edu.kit.kastel.vads.compiler.parser.Parser;
+import edu.kit.kastel.vads.compiler.parser.TokenSource;
+import edu.kit.kastel.vads.compiler.parser.ast.FunctionTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ProgramTree;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/// Measures the time and the memory allocated by the code generation, which walks the
+/// predecessors of each node several times, on a function with many statements.
+/// This is not a test, as the numbers depend on the machine: run [#main(String[])] with the test classpath.
+final class CodeGeneratorBenchmark {
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+    private static final int VARIABLES = 50;
+    private static final int STATEMENTS = 1_000;
+    private static final String[] OPERATORS = {" + ", " - ", " * ", " / ", " % "};
+
+    private CodeGeneratorBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        ProgramTree program = new Parser(new TokenSource(Lexer.forString(statements()))).parseProgram();
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            new CodeGenerator().generateCode(translate(program));
+        }
+        long[] nanos = new long[MEASURED_RUNS];
+        long[] bytes = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            List<IrGraph> graphs = translate(program);
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            new CodeGenerator().generateCode(graphs);
+            nanos[i] = System.nanoTime() - start;
+            bytes[i] = threads.getCurrentThreadAllocatedBytes() - allocated;
+        }
+        Arrays.sort(nanos);
+        Arrays.sort(bytes);
+        System.out.printf("statements %8.1f ms %8.1f MB allocated%n",
+            nanos[MEASURED_RUNS / 2] / 1e6, bytes[MEASURED_RUNS / 2] / 1e6);
+    }
+
+    private static List<IrGraph> translate(ProgramTree program) {
+        return program.topLevelTrees().stream()
+            .map((FunctionTree function) -> new SsaTranslation(function, new LocalValueNumbering()).translate())
+            .toList();
+    }
+
+    /// Declarations of all variables, followed by assignments of short expressions over them.
+    private static String statements() {
+        Random random = new Random(5);
+        StringBuilder source = new StringBuilder("int main() {\n");
+        for (int i = 0; i < VARIABLES; i++) {
+            source.append("    int v").append(i).append(" = ").append(random.nextInt(1000)).append(";\n");
+        }
+        for (int i = 0; i < STATEMENTS; i++) {
+            source.append("    v").append(random.nextInt(VARIABLES));
+            source.append(" = v").append(random.nextInt(VARIABLES));
+            source.append(OPERATORS[random.nextInt(OPERATORS.length)]);
+            source.append(random.nextBoolean() ? "v" + random.nextInt(VARIABLES) : String.valueOf(1 + random.nextInt(1000)));
+            source.append(";\n");
+        }
+        source.append("    return v0");
+        for (int i = 1; i < VARIABLES; i++) {
+            source.append(" + v").append(i);
+        }
+        return source.append(";\n}\n").toString();
+    }
+}
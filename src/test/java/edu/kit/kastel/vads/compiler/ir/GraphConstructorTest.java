@@ -0,0 +1,79 @@
+package edu.kit.kastel.vads.compiler.ir;
+
+import edu.kit.kastel.vads.compiler.ir.node.BinaryOperationNode;
+import edu.kit.kastel.vads.compiler.ir.node.Block;
+import edu.kit.kastel.vads.compiler.ir.node.Node;
+import edu.kit.kastel.vads.compiler.ir.node.Phi;
+import edu.kit.kastel.vads.compiler.ir.node.StartNode;
+import edu.kit.kastel.vads.compiler.ir.optimize.LocalValueNumbering;
+import edu.kit.kastel.vads.compiler.parser.symbol.Name;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GraphConstructorTest {
+    private static final Name X = Name.forIdentifier("x", 0);
+
+    private final GraphConstructor constructor = new GraphConstructor(new LocalValueNumbering(), "test");
+    private final IrGraph graph = this.constructor.graph();
+    private Node one;
+    private Node two;
+    private Block join;
+    private Node phi;
+
+    /// Creates a join of two edges from the start block, with a phi of `x` that becomes trivial when it is sealed.
+    private void createTrivialPhi() {
+        Block start = this.graph.startBlock();
+        this.join = new Block(this.graph);
+        // there are no jump nodes, any node of the predecessor block stands for an edge
+        this.join.addPredecessor(new StartNode(start));
+        this.join.addPredecessor(new StartNode(start));
+        this.one = this.constructor.newConstInt(1);
+        this.two = this.constructor.newConstInt(2);
+        this.constructor.writeVariable(X, start, this.one);
+        // the join isn't sealed yet, so reading x creates a phi without operands
+        this.phi = this.constructor.readVariable(X, this.join);
+        assertTrue(this.phi instanceof Phi);
+    }
+
+    @Test
+    void usersOfRemovedPhiAreNumberedAgain() {
+        createTrivialPhi();
+        Node viaPhi = this.constructor.newAdd(this.phi, this.two);
+        Node direct = this.constructor.newAdd(this.one, this.two);
+        Node user = this.constructor.newSub(viaPhi, this.two);
+        assertNotSame(viaPhi, direct);
+
+        // both edges define x as one, so the phi is replaced by it, and viaPhi becomes a duplicate of direct
+        this.constructor.sealBlock(this.join);
+        assertSame(this.one, this.constructor.readVariable(X, this.join));
+        assertSame(direct, user.predecessor(BinaryOperationNode.LEFT));
+        assertEquals(0, viaPhi.predecessorCount());
+        assertEquals(0, viaPhi.userCount());
+        // the changed nodes are known by their new inputs
+        assertSame(direct, this.constructor.newAdd(this.one, this.two));
+        assertSame(user, this.constructor.newSub(direct, this.two));
+    }
+
+    @Test
+    void duplicatesAreReplacedTransitively() {
+        createTrivialPhi();
+        Node viaPhi = this.constructor.newMul(this.phi, this.two);
+        Node userViaPhi = this.constructor.newSub(viaPhi, this.one);
+        Node variableViaPhi = this.constructor.newAdd(userViaPhi, this.two);
+        Node direct = this.constructor.newMul(this.one, this.two);
+        Node user = this.constructor.newSub(direct, this.one);
+        Name y = Name.forIdentifier("y", 1);
+        this.constructor.writeVariable(y, this.graph.startBlock(), variableViaPhi);
+
+        this.constructor.sealBlock(this.join);
+        // userViaPhi became a duplicate of user, so its user is rerouted as well
+        assertSame(user, variableViaPhi.predecessor(BinaryOperationNode.LEFT));
+        assertEquals(0, userViaPhi.predecessorCount());
+        assertSame(variableViaPhi, this.constructor.readVariable(y, this.graph.startBlock()));
+        assertSame(variableViaPhi, this.constructor.newAdd(user, this.two));
+    }
+}
@@ -0,0 +1,111 @@
+package edu.kit.kastel.vads.compiler.ir.optimize;
+
+import edu.kit.kastel.vads.compiler.ir.IrGraph;
+import edu.kit.kastel.vads.compiler.ir.node.AddNode;
+import edu.kit.kastel.vads.compiler.ir.node.BinaryOperationNode;
+import edu.kit.kastel.vads.compiler.ir.node.Block;
+import edu.kit.kastel.vads.compiler.ir.node.ConstIntNode;
+import edu.kit.kastel.vads.compiler.ir.node.MulNode;
+import edu.kit.kastel.vads.compiler.ir.node.Node;
+import edu.kit.kastel.vads.compiler.ir.node.Phi;
+import edu.kit.kastel.vads.compiler.ir.node.ReturnNode;
+import edu.kit.kastel.vads.compiler.ir.node.StartNode;
+import edu.kit.kastel.vads.compiler.ir.node.SubNode;
+import edu.kit.kastel.vads.compiler.ir.util.NodeMap;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/// Builds graphs with several blocks directly, as the translation of L1 only creates a single block.
+class GlobalValueNumberingTest {
+    private final IrGraph graph = new IrGraph("test");
+    private final Block start = this.graph.startBlock();
+    private final Node sideEffect = new StartNode(this.start);
+    private final Node one = new ConstIntNode(this.start, 1);
+    private final Node two = new ConstIntNode(this.start, 2);
+
+    @Test
+    void diamond() {
+        Block left = block(this.start);
+        Block right = block(this.start);
+        Block join = block(left, right);
+        Node inStart = new AddNode(this.start, this.one, this.two);
+        Node inLeft = new AddNode(left, this.two, this.one);
+        Node leftUser = new SubNode(left, inLeft, this.one);
+        Node leftMul = new MulNode(left, this.one, this.two);
+        Node rightMul = new MulNode(right, this.one, this.two);
+        Node joinMul = new MulNode(join, this.one, this.two);
+        Phi phi = new Phi(join);
+        phi.appendOperand(leftUser);
+        phi.appendOperand(rightMul);
+        Node result = new SubNode(join, new SubNode(join, phi, joinMul), new SubNode(join, leftMul, inStart));
+        returnFrom(join, result);
+
+        NodeMap<Block> idom = immediateDominators();
+        assertSame(this.start, idom.get(left));
+        assertSame(this.start, idom.get(right));
+        assertSame(this.start, idom.get(join));
+
+        assertEquals(1, new GlobalValueNumbering().optimize(this.graph));
+        // the start block dominates the left block
+        assertSame(inStart, leftUser.predecessor(BinaryOperationNode.LEFT));
+        assertEquals(0, inLeft.predecessorCount());
+        // neither of the left and right block dominates the other or the join
+        assertSame(rightMul, phi.predecessor(1));
+        assertSame(joinMul, phi.users().getFirst().predecessor(BinaryOperationNode.RIGHT));
+        assertEquals(2, leftMul.predecessorCount());
+    }
+
+    @Test
+    void loop() {
+        Block header = new Block(this.graph);
+        Block body = block(header);
+        Block nested = block(body);
+        Block exit = block(header);
+        header.addPredecessor(new StartNode(this.start));
+        // the back edge
+        header.addPredecessor(new StartNode(nested));
+        Phi phi = new Phi(header);
+        Node inHeader = new AddNode(header, this.one, this.two);
+        Node headerUser = new SubNode(header, phi, inHeader);
+        Node inNested = new AddNode(nested, this.two, this.one);
+        Node next = new AddNode(nested, phi, inNested);
+        phi.appendOperand(this.one);
+        phi.appendOperand(next);
+        Node inExit = new AddNode(exit, this.one, this.two);
+        Node exitUser = new MulNode(exit, headerUser, inExit);
+        returnFrom(exit, exitUser);
+
+        NodeMap<Block> idom = immediateDominators();
+        assertSame(this.start, idom.get(header));
+        assertSame(header, idom.get(body));
+        assertSame(body, idom.get(nested));
+        assertSame(header, idom.get(exit));
+
+        assertEquals(2, new GlobalValueNumbering().optimize(this.graph));
+        // the header dominates the blocks of the loop and its exit
+        assertSame(inHeader, next.predecessor(BinaryOperationNode.RIGHT));
+        assertEquals(0, inNested.predecessorCount());
+        assertSame(inHeader, exitUser.predecessor(BinaryOperationNode.RIGHT));
+        assertEquals(0, inExit.predecessorCount());
+    }
+
+    /// {@return a new block with edges from the given blocks}
+    private Block block(Block... predecessors) {
+        Block block = new Block(this.graph);
+        for (Block predecessor : predecessors) {
+            // there are no jump nodes, any node of the predecessor block stands for an edge
+            block.addPredecessor(new StartNode(predecessor));
+        }
+        return block;
+    }
+
+    private void returnFrom(Block block, Node result) {
+        this.graph.endBlock().addPredecessor(new ReturnNode(block, this.sideEffect, result));
+    }
+
+    private NodeMap<Block> immediateDominators() {
+        return GlobalValueNumbering.immediateDominators(this.graph, GlobalValueNumbering.nodesByBlock(this.graph));
+    }
+}
@@ -0,0 +1,206 @@
+package edu.kit.kastel.vads.compiler.lexer;
+
+/// The lexer as it was before tokens were recognized by the [TransitionTable]:
+/// one `switch` per token and char predicates, working on a plain string.
+/// Only used as reference to test [Lexer] against.
+final class HandWrittenLexer {
+    private final String source;
+    private int pos;
+    private TokenKind kind;
+    private int tokenStart;
+    private int tokenEnd;
+
+    HandWrittenLexer(String source) {
+        this.source = source;
+    }
+
+    /// Moves to the next token, see [Lexer#advance()].
+    boolean advance() {
+        int unterminatedComment = skipWhitespace();
+        if (unterminatedComment >= 0) {
+            this.kind = TokenKind.ERROR;
+            this.tokenStart = unterminatedComment;
+            this.tokenEnd = this.source.length();
+            return true;
+        }
+        if (this.pos >= this.source.length()) {
+            return false;
+        }
+        this.tokenStart = this.pos;
+        this.kind = switch (peek()) {
+            case '(' -> single(TokenKind.PAREN_OPEN);
+            case ')' -> single(TokenKind.PAREN_CLOSE);
+            case '{' -> single(TokenKind.BRACE_OPEN);
+            case '}' -> single(TokenKind.BRACE_CLOSE);
+            case ';' -> single(TokenKind.SEMICOLON);
+            case '-' -> singleOrAssign(TokenKind.MINUS, TokenKind.ASSIGN_MINUS);
+            case '+' -> singleOrAssign(TokenKind.PLUS, TokenKind.ASSIGN_PLUS);
+            case '*' -> singleOrAssign(TokenKind.MUL, TokenKind.ASSIGN_MUL);
+            case '/' -> singleOrAssign(TokenKind.DIV, TokenKind.ASSIGN_DIV);
+            case '%' -> singleOrAssign(TokenKind.MOD, TokenKind.ASSIGN_MOD);
+            case '=' -> single(TokenKind.ASSIGN);
+            default -> {
+                if (isIdentifierChar(peek())) {
+                    if (isNumeric(peek())) {
+                        yield lexNumber();
+                    }
+                    yield lexIdentifierOrKeyword();
+                }
+                yield single(TokenKind.ERROR);
+            }
+        };
+        this.tokenEnd = this.pos;
+        return true;
+    }
+
+    TokenKind kind() {
+        return this.kind;
+    }
+
+    int tokenStart() {
+        return this.tokenStart;
+    }
+
+    int tokenEnd() {
+        return this.tokenEnd;
+    }
+
+    /// @return the start of an unterminated multi line comment, or -1
+    private int skipWhitespace() {
+        while (hasMore(0)) {
+            switch (peek()) {
+                case ' ', '\t', '\n', '\r' -> this.pos++;
+                case '/' -> {
+                    if (!hasMore(1)) {
+                        return -1;
+                    }
+                    if (peek(1) == '/') {
+                        this.pos += 2;
+                        while (hasMore(0) && peek() != '\n' && peek() != '\r') {
+                            this.pos++;
+                        }
+                    } else if (peek(1) == '*') {
+                        int unterminated = skipMultiLineComment();
+                        if (unterminated >= 0) {
+                            return unterminated;
+                        }
+                    } else {
+                        return -1;
+                    }
+                }
+                default -> {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private int skipMultiLineComment() {
+        int commentStart = this.pos;
+        int depth = 1;
+        this.pos += 2;
+        while (hasMore(1)) {
+            if (peek() == '*' && peek(1) == '/') {
+                this.pos += 2;
+                if (--depth == 0) {
+                    return -1;
+                }
+            } else if (peek() == '/' && peek(1) == '*') {
+                commentStart = this.pos;
+                depth++;
+                this.pos += 2;
+            } else {
+                this.pos++;
+            }
+        }
+        this.pos = this.source.length();
+        return commentStart;
+    }
+
+    private TokenKind lexIdentifierOrKeyword() {
+        int off = 1;
+        while (hasMore(off) && isIdentifierChar(peek(off))) {
+            off++;
+        }
+        String id = this.source.substring(this.pos, this.pos + off);
+        this.pos += off;
+        for (KeywordType value : KeywordType.values()) {
+            if (value.keyword().equals(id)) {
+                return TokenKind.of(value);
+            }
+        }
+        return TokenKind.IDENTIFIER;
+    }
+
+    private TokenKind lexNumber() {
+        if (isHexPrefix()) {
+            int off = 2;
+            while (hasMore(off) && isHex(peek(off))) {
+                off++;
+            }
+            this.pos += off;
+            if (off == 2) {
+                // 0x without any further hex digits
+                return TokenKind.ERROR;
+            }
+            return TokenKind.HEX_LITERAL;
+        }
+        int off = 1;
+        while (hasMore(off) && isNumeric(peek(off))) {
+            off++;
+        }
+        boolean leadingZero = peek() == '0' && off > 1;
+        this.pos += off;
+        if (leadingZero) {
+            // leading zero is not allowed
+            return TokenKind.ERROR;
+        }
+        return TokenKind.DECIMAL_LITERAL;
+    }
+
+    private boolean isHexPrefix() {
+        return peek() == '0' && hasMore(1) && (peek(1) == 'x' || peek(1) == 'X');
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return c == '_'
+            || c >= 'a' && c <= 'z'
+            || c >= 'A' && c <= 'Z'
+            || c >= '0' && c <= '9';
+    }
+
+    private static boolean isNumeric(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isHex(char c) {
+        return isNumeric(c) || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private TokenKind single(TokenKind kind) {
+        this.pos++;
+        return kind;
+    }
+
+    private TokenKind singleOrAssign(TokenKind single, TokenKind assign) {
+        if (hasMore(1) && peek(1) == '=') {
+            this.pos += 2;
+            return assign;
+        }
+        this.pos++;
+        return single;
+    }
+
+    private boolean hasMore(int offset) {
+        return this.pos + offset < this.source.length();
+    }
+
+    private char peek() {
+        return peek(0);
+    }
+
+    private char peek(int offset) {
+        return this.source.charAt(this.pos + offset);
+    }
+}
@@ -0,0 +1,104 @@
+package edu.kit.kastel.vads.compiler.lexer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/// Measures the lexing throughput on generated sources.
+/// This is not a test, as the numbers depend on the machine: run [#main(String[])] with the test classpath,
+/// optionally with the names of the inputs to measure.
+final class LexerBenchmark {
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 30;
+    private static final int SOURCE_SIZE = 8 << 20;
+
+    private LexerBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        List<String> inputs = args.length == 0 ? List.of("identifiers", "comments", "whitespace") : List.of(args);
+        for (String input : inputs) {
+            String source = switch (input) {
+                case "identifiers" -> identifiers();
+                case "comments" -> comments();
+                case "whitespace" -> whitespace();
+                default -> throw new IllegalArgumentException("unknown input " + input);
+            };
+            measure(input, source);
+        }
+    }
+
+    /// Declarations and assignments using many distinct identifiers, some of them starting like keywords.
+    private static String identifiers() {
+        List<String> words = List.of(
+            "x", "value", "counter", "intermediate", "returned", "whiles", "if_", "break_count", "forward",
+            "struct_size", "alloc", "_tmp", "a1", "bool_flag", "elsewhere", "continues", "voidness", "nullable"
+        );
+        Random random = new Random(1);
+        StringBuilder source = new StringBuilder(SOURCE_SIZE + 100);
+        while (source.length() < SOURCE_SIZE) {
+            String target = words.get(random.nextInt(words.size())) + random.nextInt(1000);
+            if (random.nextBoolean()) {
+                source.append("int ");
+            }
+            source.append(target).append(" = ");
+            for (int i = random.nextInt(4); i >= 0; i--) {
+                source.append(words.get(random.nextInt(words.size()))).append(random.nextInt(100)).append(" + ");
+            }
+            source.append(random.nextInt(100)).append(";\nreturn ").append(target).append(";\n");
+        }
+        return source.toString();
+    }
+
+    /// Short statements between large comment banners, line comments and nested block comments.
+    private static String comments() {
+        String banner = "/" + "*".repeat(78) + "\n" + (" * generated by a tool, do not edit" + " ".repeat(40) + "*\n").repeat(6)
+            + " * /* the generator nests comments */" + " ".repeat(38) + "*\n"
+            + " " + "*".repeat(78) + "/\n";
+        StringBuilder source = new StringBuilder(SOURCE_SIZE + banner.length());
+        for (int i = 0; source.length() < SOURCE_SIZE; i++) {
+            source.append(banner);
+            source.append("x = ").append(i).append("; // the ").append(i).append("th assignment, see the banner\n");
+        }
+        return source.toString();
+    }
+
+    /// Short statements indented by long runs of spaces and tabs, as in deeply nested generated code.
+    private static String whitespace() {
+        Random random = new Random(2);
+        StringBuilder source = new StringBuilder(SOURCE_SIZE + 200);
+        while (source.length() < SOURCE_SIZE) {
+            int depth = random.nextInt(40);
+            source.append("\t".repeat(depth / 8)).append("    ".repeat(depth)).append("x");
+            source.append(" ".repeat(1 + random.nextInt(16))).append("=").append(" ".repeat(1 + random.nextInt(16)));
+            source.append(depth).append(";").append(" ".repeat(random.nextInt(30))).append("\n\n");
+        }
+        return source.toString();
+    }
+
+    private static void measure(String name, String source) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            lex(source);
+        }
+        long[] nanos = new long[MEASURED_RUNS];
+        int tokens = 0;
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            tokens = lex(source);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        double millis = nanos[MEASURED_RUNS / 2] / 1e6;
+        System.out.printf("%-12s %8.1f ms %8.1f MB/s %10d tokens%n",
+            name, millis, source.length() / 1e6 / (millis / 1e3), tokens);
+    }
+
+    private static int lex(String source) {
+        Lexer lexer = Lexer.forString(source);
+        int tokens = 0;
+        while (lexer.nextToken().isPresent()) {
+            tokens++;
+        }
+        return tokens;
+    }
+}
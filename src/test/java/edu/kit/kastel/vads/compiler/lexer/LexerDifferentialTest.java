@@ -0,0 +1,102 @@
+package edu.kit.kastel.vads.compiler.lexer;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/// Compares the table-driven [Lexer] with the [HandWrittenLexer] it replaced.
+class LexerDifferentialTest {
+    private static final List<String> FRAGMENTS = List.of(
+        "int", "return", "while", "if", "else", "alloc_array", "main", "x", "_y1", "intx", "returns", "Int",
+        "0", "1", "00", "007", "2147483647", "2147483648", "2147483649", "99999999999999999999",
+        "0x", "0X", "0x0", "0xFF", "0Xff", "0xFFFFFFFF", "0x100000000", "0x00000000FFFFFFFF", "0xg", "0x1g",
+        "+", "-", "*", "/", "%", "=", "+=", "-=", "*=", "/=", "%=", "==", "=+", "(", ")", "{", "}", ";",
+        "// line comment\n", "// unterminated line comment", "//\r", "/**/", "/* a */", "/* /* nested */ */",
+        "/* // */", "/*/", "/* * / */", "*/", "/*", "/* unterminated", "/* /* */ unterminated",
+        "#", "@", "$", "!", "\u0000", "\u007f", "é", "ÿ", "\\",
+        " ", "  ", "\t", "\n", "\r\n", "\r"
+    );
+    // chars for raw input, biased toward chars that start or end tokens and comments
+    private static final String SOUP = "ab_xX019fF+-*/%=(){};/*/*\n\r\t  #é";
+
+    @Test
+    void fixedInputs() {
+        for (String fragment : FRAGMENTS) {
+            assertSameTokens(fragment);
+            assertSameTokens("a " + fragment + " b");
+        }
+        assertSameTokens("int main() { int x = 0x1F; x += 2147483648; return -x; }");
+        assertSameTokens("/* outer /* inner */ still outer */ x /* open /* nested");
+    }
+
+    @Test
+    void generatedTokenSequences() {
+        Random random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder builder = new StringBuilder();
+            int count = random.nextInt(12);
+            for (int j = 0; j < count; j++) {
+                builder.append(FRAGMENTS.get(random.nextInt(FRAGMENTS.size())));
+                if (random.nextBoolean()) {
+                    builder.append(' ');
+                }
+            }
+            assertSameTokens(builder.toString());
+        }
+    }
+
+    @Test
+    void generatedCharSoup() {
+        Random random = new Random(4242);
+        for (int i = 0; i < 20_000; i++) {
+            char[] chars = new char[random.nextInt(24)];
+            for (int j = 0; j < chars.length; j++) {
+                chars[j] = SOUP.charAt(random.nextInt(SOUP.length()));
+            }
+            assertSameTokens(new String(chars));
+        }
+    }
+
+    private static void assertSameTokens(String source) {
+        Lexer lexer = Lexer.forString(source);
+        HandWrittenLexer expected = new HandWrittenLexer(source);
+        int index = 0;
+        while (expected.advance()) {
+            String at = "token " + index + " of \"" + source + "\"";
+            assertEquals(true, lexer.advance(), at);
+            assertEquals(expected.kind(), lexer.kind(), at);
+            assertEquals(expected.tokenStart(), lexer.tokenStart(), at);
+            assertEquals(expected.tokenEnd(), lexer.tokenEnd(), at);
+            String text = source.substring(expected.tokenStart(), expected.tokenEnd());
+            Token token = lexer.token(lexer.kind(), lexer.tokenStart(), lexer.tokenEnd(), lexer.tokenValue());
+            assertEquals(expected.tokenStart(), token.span().startOffset(), at);
+            assertEquals(expected.tokenEnd(), token.span().endOffset(), at);
+            switch (token) {
+                case Identifier identifier -> assertEquals(text, identifier.value(), at);
+                case NumberLiteral literal -> assertValue(text, literal, at);
+                default -> {
+                }
+            }
+            index++;
+        }
+        assertFalse(lexer.advance(), "more tokens than expected in \"" + source + "\"");
+    }
+
+    private static void assertValue(String text, NumberLiteral literal, String at) {
+        assertEquals(text, literal.value(), at);
+        BigInteger value = literal.base() == 16
+            ? new BigInteger(text.substring(2), 16)
+            : new BigInteger(text);
+        BigInteger max = literal.base() == 16 ? BigInteger.valueOf(0xFFFFFFFFL) : BigInteger.ONE.shiftLeft(31);
+        boolean outOfRange = value.compareTo(max) > 0;
+        assertEquals(outOfRange, literal.outOfRange(), at);
+        if (!outOfRange) {
+            assertEquals(value.intValue(), literal.intValue(), at);
+        }
+    }
+}
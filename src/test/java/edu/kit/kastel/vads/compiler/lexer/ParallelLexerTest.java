@@ -0,0 +1,86 @@
+package edu.kit.kastel.vads.compiler.lexer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/// Checks that [ParallelLexer] produces exactly the tokens of lexing sequentially.
+/// The chunks are made small, so their borders fall into comments and tokens.
+class ParallelLexerTest {
+    private static final int CHUNK_SIZE = 64;
+    private static final List<String> LINES = List.of(
+        "int x = 0x1F;", "x += 2147483648;", "return -x;", "{ y = x * 3 % 4; }",
+        "// a line comment /* that doesn't open a comment", "/* a comment */ x = 1;", "x = 1; /* open",
+        "still in the comment", "/* nested", "*/ still in the outer comment", "closed */ y -= 1;",
+        "*/", "/*/ also open", "// */", "", "   \t", "#invalid", "0x", "007"
+    );
+
+    @Test
+    void commentsAcrossChunks() {
+        StringBuilder source = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            source.append("/* comment ").append(i).append('\n');
+            for (int j = 0; j < i % 13; j++) {
+                source.append("int x").append(j).append(" = ").append(j).append(";\n");
+            }
+            source.append("*/ x").append(i).append(" = ").append(i).append(";\n");
+        }
+        assertSameTokens(source.toString());
+    }
+
+    @Test
+    void unterminatedCommentAcrossChunks() {
+        StringBuilder source = new StringBuilder("int x = 1;\n");
+        source.append("x = 2; /* unterminated\n".repeat(100));
+        assertSameTokens(source.toString());
+        assertSameTokens("/*\n" + "return x;\n".repeat(200));
+    }
+
+    @Test
+    void generatedSources() {
+        Random random = new Random(10);
+        for (int i = 0; i < 200; i++) {
+            StringBuilder source = new StringBuilder();
+            int lines = random.nextInt(400);
+            for (int j = 0; j < lines; j++) {
+                source.append(LINES.get(random.nextInt(LINES.size())));
+                source.append(random.nextInt(5) == 0 ? "\r\n" : "\n");
+            }
+            assertSameTokens(source.toString());
+        }
+    }
+
+    private static void assertSameTokens(String source) {
+        Lexer sequentialLexer = Lexer.forString(source);
+        TokenBuffer sequential = TokenBuffer.lexAll(sequentialLexer);
+        Lexer parallelLexer = Lexer.forString(source);
+        TokenBuffer parallel;
+        try (ForkJoinPool pool = new ForkJoinPool(4)) {
+            parallel = ParallelLexer.lexAll(parallelLexer, pool, CHUNK_SIZE);
+        }
+        assertEquals(sequential.size(), parallel.size(), "number of tokens");
+        for (int i = 0; i < sequential.size(); i++) {
+            String at = "token " + i;
+            TokenKind kind = sequential.kind(i);
+            assertEquals(kind, parallel.kind(i), at);
+            assertEquals(sequential.start(i), parallel.start(i), at);
+            assertEquals(sequential.end(i), parallel.end(i), at);
+            if (kind == TokenKind.IDENTIFIER) {
+                // the symbols are numbered in a different order
+                assertEquals(
+                    sequentialLexer.symbols().name(sequential.value(i)),
+                    parallelLexer.symbols().name(parallel.value(i)),
+                    at
+                );
+            } else if (kind == TokenKind.DECIMAL_LITERAL || kind == TokenKind.HEX_LITERAL) {
+                // other tokens have no value
+                assertEquals(sequential.value(i), parallel.value(i), at);
+            }
+        }
+        assertEquals(false, parallelLexer.advance(), "the lexer is left at the end");
+    }
+}
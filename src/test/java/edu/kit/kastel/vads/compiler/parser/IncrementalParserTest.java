@@ -0,0 +1,177 @@
+package edu.kit.kastel.vads.compiler.parser;
+
+import edu.kit.kastel.vads.compiler.lexer.Lexer;
+import edu.kit.kastel.vads.compiler.parser.ast.ProgramTree;
+import edu.kit.kastel.vads.compiler.parser.ast.StatementTree;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/// Checks that each edit of an [IncrementalParser] results in the same tree as a fresh parse of the edited source.
+class IncrementalParserTest {
+    private static final String PROGRAM = """
+        int main() {
+            int x = 1;
+            /* a comment */
+            int y = x + 2;
+            // a line comment
+            x += y * 0x1F;
+            return -x;
+        }
+        """;
+
+    @Test
+    void inserts() {
+        Edited edited = new Edited(PROGRAM);
+        edited.insert("int y", "int z = 3;\n    ");
+        edited.insert("return", "z = z % 7;\n    ");
+        edited.insert("int y = x", "1");
+        edited.insert("x += y", " - z");
+        edited.insert("int x = 1;\n", "int w;\n");
+        edited.insert("}\n", "\n");
+    }
+
+    @Test
+    void deletes() {
+        Edited edited = new Edited(PROGRAM);
+        edited.replace("int y = x + 2;", "");
+        edited.replace("int x = 1;", "");
+        edited.replace(" * 0x1F", "");
+        edited.replace("return -x;", "");
+        edited.replace("int main() {", "");
+    }
+
+    @Test
+    void editsInsideComments() {
+        Edited edited = new Edited(PROGRAM);
+        edited.insert("comment */", "more ");
+        edited.replace("a line comment", "line */ comment");
+        // opening a comment swallows the following statements, closing it brings them back
+        edited.insert("int y", "/*");
+        edited.insert("x += y", "*/");
+        edited.replace("/*int", "int");
+        edited.replace("*/x", "x");
+        // a nested comment only ends at the outer end
+        edited.insert("more", "/* ");
+        edited.insert("return", "*/ ");
+        edited.replace("/* more", "more");
+        edited.replace("*/ return", "return");
+        // a line comment ends at the line break
+        edited.insert("x += y", "// ");
+        edited.replace("// x += y", "x += y");
+    }
+
+    @Test
+    void editsAcrossStatements() {
+        Edited edited = new Edited(PROGRAM);
+        edited.replace("1;\n    /* a comment */\n    int y", "1; int y");
+        edited.replace("; int", ";\nint");
+        edited.replace("2;", "2");
+        edited.replace("2", "2;");
+        edited.replace("x = 1", "x = 1; x = 2");
+    }
+
+    @Test
+    void editsFarFromTheEnd() {
+        StringBuilder program = new StringBuilder("int main() {\n    int x = 0;\n");
+        for (int i = 0; i < 2000; i++) {
+            program.append("    x += ").append(i).append("; // statement ").append(i).append('\n');
+        }
+        program.append("    return x;\n}\n");
+        Edited edited = new Edited(program.toString());
+        edited.insert("x += 1000;", "x = x;");
+        edited.insert("x += 10;", "x = x;");
+        edited.insert("x += 1999;", "x = x;");
+        // an unterminated comment lexes until the end, its end is found again after it is closed
+        edited.insert("x += 7;", "/*");
+        edited.insert("x += 1500;", "*/");
+        edited.replace("x += 5;", "");
+        edited.replace("/*x += 7;", "x += 7;");
+        edited.replace("*/x += 1500;", "x += 1500;");
+    }
+
+    @Test
+    void reusesStatementsBehindTheEdit() {
+        IncrementalParser parser = new IncrementalParser(PROGRAM);
+        StatementTree last = parser.parse().topLevelTrees().getFirst().body().statements().getLast();
+        int start = last.span().startOffset();
+        int offset = PROGRAM.indexOf("int y");
+        List<StatementTree> statements = parser.edit(offset, offset, "int z = 3; ")
+            .topLevelTrees().getFirst().body().statements();
+        assertSame(last, statements.getLast());
+        assertEquals(start + "int z = 3; ".length(), last.span().startOffset());
+    }
+
+    @Test
+    void randomEdits() {
+        List<String> fragments = List.of(
+            "int a = 1;", "a += 2;", "return a;", "{", "}", ";", "/*", "*/", "//", "\n", " ", "x", "0x", "-", "(", "="
+        );
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            Edited edited = new Edited(PROGRAM);
+            for (int i = 0; i < 20; i++) {
+                int length = edited.text.length();
+                int start = random.nextInt(length + 1);
+                int end = Math.min(length, start + random.nextInt(8));
+                String replacement = random.nextInt(3) == 0 ? "" : fragments.get(random.nextInt(fragments.size()));
+                edited.edit(start, end, replacement);
+            }
+        }
+    }
+
+    /// A source that is edited both incrementally and as plain text.
+    private static final class Edited {
+        private final StringBuilder text;
+        private final IncrementalParser parser;
+
+        Edited(String source) {
+            this.text = new StringBuilder(source);
+            this.parser = new IncrementalParser(source);
+            assertEquals(freshParse(), result(this.parser::parse));
+        }
+
+        void insert(String before, String inserted) {
+            int offset = indexOf(before);
+            edit(offset, offset, inserted);
+        }
+
+        void replace(String replaced, String replacement) {
+            int offset = indexOf(replaced);
+            edit(offset, offset + replaced.length(), replacement);
+        }
+
+        void edit(int start, int end, String replacement) {
+            this.text.replace(start, end, replacement);
+            String incremental = result(() -> this.parser.edit(start, end, replacement));
+            assertEquals(freshParse(), incremental, "after replacing " + start + "-" + end + " in\n" + this.text);
+        }
+
+        private int indexOf(String fragment) {
+            int offset = this.text.indexOf(fragment);
+            if (offset < 0) {
+                throw new IllegalArgumentException("no '" + fragment + "' in\n" + this.text);
+            }
+            return offset;
+        }
+
+        private String freshParse() {
+            Lexer lexer = Lexer.forString(this.text.toString());
+            return result(() -> new Parser(new TokenSource(lexer)).parseProgram());
+        }
+
+        // the dumped tree, or the message of the parse error without the parse specific symbols
+        private static String result(Supplier<ProgramTree> parse) {
+            try {
+                return TreeDump.dump(parse.get());
+            } catch (ParseException e) {
+                return "error: " + e.getMessage().replaceAll("symbol=\\d+", "symbol");
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package edu.kit.kastel.vads.compiler.parser;
+
+import edu.kit.kastel.vads.compiler.lexer.Lexer;
+import edu.kit.kastel.vads.compiler.parser.ast.NameTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ProgramTree;
+import edu.kit.kastel.vads.compiler.parser.visitor.NoOpVisitor;
+import edu.kit.kastel.vads.compiler.parser.visitor.RecursivePostorderVisitor;
+import edu.kit.kastel.vads.compiler.parser.visitor.Unit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ParseCacheTest {
+    private static final String PROGRAM = """
+        int main() {
+            int x = 0x1F;
+            int y;
+            /* a comment */ y = -(x + 2) * x % 3;
+            y += 2147483648;
+            x = ---y / (x - y);
+            return x;
+        }
+        """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void storedTreeIsLoaded() throws IOException {
+        ParseCache cache = new ParseCache(this.directory.resolve("cache"));
+        ParseCache.Key key = cache.key(source(PROGRAM));
+        assertEquals(Optional.empty(), cache.load(key));
+        ProgramTree program = parse(PROGRAM);
+        cache.store(key, program);
+
+        Optional<ProgramTree> loaded = cache.load(key);
+        assertTrue(loaded.isPresent());
+        assertEquals(TreeDump.dump(program), TreeDump.dump(loaded.get()));
+        assertEquals(names(program), names(loaded.get()));
+    }
+
+    @Test
+    void otherSourceIsMissed() throws IOException {
+        ParseCache cache = new ParseCache(this.directory.resolve("cache"));
+        cache.store(cache.key(source(PROGRAM)), parse(PROGRAM));
+        String other = PROGRAM.replace("0x1F", "0x1E");
+        assertEquals(Optional.empty(), cache.load(cache.key(source(other))));
+    }
+
+    @Test
+    void corruptEntryIsMissed() throws IOException {
+        ParseCache cache = new ParseCache(this.directory.resolve("cache"));
+        ParseCache.Key key = cache.key(source(PROGRAM));
+        cache.store(key, parse(PROGRAM));
+        Path entry = entry();
+        byte[] stored = Files.readAllBytes(entry);
+
+        for (int length : new int[] {0, 4, 8, 12, stored.length / 2, stored.length - 1}) {
+            Files.write(entry, Arrays.copyOf(stored, length));
+            assertEquals(Optional.empty(), cache.load(key), "entry truncated to " + length + " bytes");
+        }
+        for (int i = 0; i < stored.length; i++) {
+            byte[] corrupted = stored.clone();
+            corrupted[i] ^= 0x10;
+            Files.write(entry, corrupted);
+            assertEquals(Optional.empty(), cache.load(key), "byte " + i + " flipped");
+        }
+        byte[] extended = Arrays.copyOf(stored, stored.length + 1);
+        Files.write(entry, extended);
+        assertEquals(Optional.empty(), cache.load(key), "entry with trailing byte");
+
+        // a valid entry replaces the corrupt one
+        cache.store(key, parse(PROGRAM));
+        assertTrue(cache.load(key).isPresent());
+    }
+
+    private Path source(String content) throws IOException {
+        Path file = Files.createTempFile(this.directory, "source", ".l1");
+        Files.writeString(file, content);
+        return file;
+    }
+
+    private Path entry() throws IOException {
+        try (Stream<Path> entries = Files.list(this.directory.resolve("cache"))) {
+            List<Path> trees = entries.filter(path -> path.toString().endsWith(".tree")).toList();
+            assertEquals(1, trees.size());
+            return trees.getFirst();
+        }
+    }
+
+    private static ProgramTree parse(String source) {
+        return new Parser(new TokenSource(Lexer.forString(source))).parseProgram();
+    }
+
+    // the symbols of all names in postorder, the dump only contains their strings
+    private static String names(ProgramTree program) {
+        StringBuilder builder = new StringBuilder();
+        NoOpVisitor<StringBuilder> symbols = new NoOpVisitor<>() {
+            @Override
+            public Unit visit(NameTree name, StringBuilder data) {
+                data.append(name.name().symbol()).append(' ');
+                return Unit.INSTANCE;
+            }
+        };
+        program.accept(new RecursivePostorderVisitor<>(symbols), builder);
+        return builder.toString();
+    }
+}
@@ -0,0 +1,59 @@
+package edu.kit.kastel.vads.compiler.parser;
+
+import edu.kit.kastel.vads.compiler.lexer.Lexer;
+import edu.kit.kastel.vads.compiler.lexer.TokenBuffer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/// Measures parsing, without lexing, on a function with long chains of binary operators.
+/// This is not a test, as the numbers depend on the machine: run [#main(String[])] with the test classpath.
+final class ParserBenchmark {
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 30;
+    private static final int STATEMENTS = 2_000;
+    private static final int OPERANDS = 200;
+    private static final String[] OPERATORS = {" + ", " - ", " * ", " / ", " % "};
+
+    private ParserBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        String source = operatorChains();
+        Lexer lexer = Lexer.forString(source);
+        TokenBuffer tokens = TokenBuffer.lexAll(lexer);
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            parse(tokens, lexer);
+        }
+        long[] nanos = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            parse(tokens, lexer);
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("operator chains %8.1f ms %10d tokens%n", nanos[MEASURED_RUNS / 2] / 1e6, tokens.size());
+    }
+
+    /// Assignments of chains of operands joined by operators of all precedence levels, some of them negated.
+    private static String operatorChains() {
+        Random random = new Random(3);
+        StringBuilder source = new StringBuilder("int main() {\n    int x = 1;\n");
+        for (int i = 0; i < STATEMENTS; i++) {
+            source.append("    x = x");
+            for (int j = 1; j < OPERANDS; j++) {
+                source.append(OPERATORS[random.nextInt(OPERATORS.length)]);
+                if (random.nextInt(8) == 0) {
+                    source.append('-');
+                }
+                source.append(random.nextBoolean() ? "x" : String.valueOf(random.nextInt(1000)));
+            }
+            source.append(";\n");
+        }
+        return source.append("    return x;\n}\n").toString();
+    }
+
+    private static void parse(TokenBuffer tokens, Lexer lexer) {
+        new Parser(new TokenSource(tokens, lexer, 0)).parseProgram();
+    }
+}
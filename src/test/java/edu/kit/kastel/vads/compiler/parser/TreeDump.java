@@ -0,0 +1,97 @@
+package edu.kit.kastel.vads.compiler.parser;
+
+import edu.kit.kastel.vads.compiler.Span;
+import edu.kit.kastel.vads.compiler.parser.ast.AssignmentTree;
+import edu.kit.kastel.vads.compiler.parser.ast.BinaryOperationTree;
+import edu.kit.kastel.vads.compiler.parser.ast.BlockTree;
+import edu.kit.kastel.vads.compiler.parser.ast.DeclarationTree;
+import edu.kit.kastel.vads.compiler.parser.ast.FunctionTree;
+import edu.kit.kastel.vads.compiler.parser.ast.IdentExpressionTree;
+import edu.kit.kastel.vads.compiler.parser.ast.LValueIdentTree;
+import edu.kit.kastel.vads.compiler.parser.ast.LiteralTree;
+import edu.kit.kastel.vads.compiler.parser.ast.NameTree;
+import edu.kit.kastel.vads.compiler.parser.ast.NegateTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ProgramTree;
+import edu.kit.kastel.vads.compiler.parser.ast.ReturnTree;
+import edu.kit.kastel.vads.compiler.parser.ast.Tree;
+import edu.kit.kastel.vads.compiler.parser.ast.TypeTree;
+
+/// Renders a tree with the offsets of all its spans, to compare trees of different parses.
+/// Trees can't be compared with `equals`, as spans refer to their [edu.kit.kastel.vads.compiler.LineMap]
+/// and names to the symbols of their parse.
+final class TreeDump {
+    private TreeDump() {
+    }
+
+    static String dump(Tree tree) {
+        StringBuilder builder = new StringBuilder();
+        dump(tree, builder);
+        return builder.toString();
+    }
+
+    private static void dump(Tree tree, StringBuilder builder) {
+        switch (tree) {
+            case ProgramTree(var functions) -> {
+                builder.append("Program(");
+                functions.forEach(function -> dump(function, builder));
+                builder.append(')');
+            }
+            case FunctionTree(var returnType, var name, var body) -> {
+                builder.append("Function(");
+                dump(returnType, builder);
+                dump(name, builder);
+                dump(body, builder);
+                builder.append(')');
+            }
+            case BlockTree(var statements, var span) -> {
+                builder.append("Block").append(offsets(span)).append('(');
+                statements.forEach(statement -> dump(statement, builder));
+                builder.append(')');
+            }
+            case DeclarationTree(var type, var name, var initializer) -> {
+                builder.append("Declaration(");
+                dump(type, builder);
+                dump(name, builder);
+                if (initializer != null) {
+                    dump(initializer, builder);
+                }
+                builder.append(')');
+            }
+            case AssignmentTree(var lValue, var operator, var expression) -> {
+                builder.append("Assignment(");
+                dump(lValue, builder);
+                builder.append(operator.type()).append(offsets(operator.span()));
+                dump(expression, builder);
+                builder.append(')');
+            }
+            case ReturnTree(var expression, var returnPos) -> {
+                builder.append("Return").append(offsets(returnPos)).append('(');
+                dump(expression, builder);
+                builder.append(')');
+            }
+            case BinaryOperationTree(var lhs, var rhs, var type) -> {
+                builder.append(type).append('(');
+                dump(lhs, builder);
+                dump(rhs, builder);
+                builder.append(')');
+            }
+            case NegateTree(var expression, var minusPos) -> {
+                builder.append("Negate").append(offsets(minusPos)).append('(');
+                dump(expression, builder);
+                builder.append(')');
+            }
+            case LiteralTree literal -> builder.append("Literal ").append(literal.value())
+                .append(offsets(literal.span())).append(' ');
+            case IdentExpressionTree(var name) -> dump(name, builder);
+            case LValueIdentTree(var name) -> dump(name, builder);
+            case NameTree(var name, var span) -> builder.append("Name ").append(name.asString())
+                .append(offsets(span)).append(' ');
+            case TypeTree(var type, var span) -> builder.append("Type ").append(type.asString())
+                .append(offsets(span)).append(' ');
+        }
+    }
+
+    private static String offsets(Span span) {
+        return "@" + span.startOffset() + "-" + span.endOffset();
+    }
+}
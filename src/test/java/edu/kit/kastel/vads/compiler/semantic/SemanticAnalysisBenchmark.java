@@ -0,0 +1,54 @@
+package edu.kit.kastel.vads.compiler.semantic;
+
+import edu.kit.kastel.vads.compiler.lexer.Lexer;
+import edu.kit.kastel.vads.compiler.parser.Parser;
+import edu.kit.kastel.vads.compiler.parser.TokenSource;
+import edu.kit.kastel.vads.compiler.parser.ast.ProgramTree;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/// Measures the semantic analysis, without lexing and parsing, on a function with many statements.
+/// This is not a test, as the numbers depend on the machine: run [#main(String[])] with the test classpath.
+final class SemanticAnalysisBenchmark {
+    private static final int WARMUP_RUNS = 20;
+    private static final int MEASURED_RUNS = 30;
+    private static final int VARIABLES = 1_000;
+    private static final int STATEMENTS = 1_000_000;
+    private static final String[] OPERATORS = {" + ", " - ", " * ", " / ", " % "};
+
+    private SemanticAnalysisBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        ProgramTree program = new Parser(new TokenSource(Lexer.forString(statements()))).parseProgram();
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            new SemanticAnalysis(program).analyze();
+        }
+        long[] nanos = new long[MEASURED_RUNS];
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            long start = System.nanoTime();
+            new SemanticAnalysis(program).analyze();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        System.out.printf("statements %8.1f ms%n", nanos[MEASURED_RUNS / 2] / 1e6);
+    }
+
+    /// Declarations of all variables, followed by assignments of short expressions over them.
+    private static String statements() {
+        Random random = new Random(4);
+        StringBuilder source = new StringBuilder("int main() {\n");
+        for (int i = 0; i < VARIABLES; i++) {
+            source.append("    int v").append(i).append(" = ").append(random.nextInt(1000)).append(";\n");
+        }
+        for (int i = 0; i < STATEMENTS; i++) {
+            source.append("    v").append(random.nextInt(VARIABLES));
+            source.append(random.nextBoolean() ? " = " : " += ").append('v').append(random.nextInt(VARIABLES));
+            source.append(OPERATORS[random.nextInt(OPERATORS.length)]);
+            source.append(random.nextBoolean() ? "-v" + random.nextInt(VARIABLES) : String.valueOf(1 + random.nextInt(1000)));
+            source.append(";\n");
+        }
+        return source.append("    return v0;\n}\n").toString();
+    }
+}